@@ -0,0 +1,134 @@
+package edu.regis.stemulator.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.request.ScienceGuideRequest;
+
+/**
+ * Realistic inputs for the benchmarks, built from the lab exports in
+ * src/main/resources/data/stemulator.labs.*.json.
+ */
+public final class BenchmarkFixtures {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BenchmarkFixtures() { }
+
+    public static List<ScienceLab> labs() {
+        try {
+            List<ScienceLab> labs = new ArrayList<>();
+            Resource[] exports = new PathMatchingResourcePatternResolver().getResources("classpath:data/stemulator.labs.*.json");
+            for (Resource export : exports) {
+                try (InputStream in = export.getInputStream()) {
+                    for (JsonNode node : MAPPER.readTree(in)) {
+                        // Mongo export fields: _id is the labId, _class is Spring Data's type hint
+                        ObjectNode lab = ((ObjectNode) node).deepCopy();
+                        lab.set("labId", lab.remove("_id"));
+                        lab.remove("_class");
+                        labs.add(MAPPER.treeToValue(lab, ScienceLab.class));
+                    }
+                }
+            }
+            if (labs.isEmpty()) {
+                throw new IllegalStateException("No lab fixtures found under classpath:data/");
+            }
+            return labs;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static ScienceLab largestLab() {
+        return labs().stream()
+                .max((a, b) -> Integer.compare(json(a).length(), json(b).length()))
+                .orElseThrow();
+    }
+
+    /** A student submission shaped like the ones the UI sends for a lab part. */
+    public static ScienceGuideRequest guideRequest(ScienceLab lab, int partId) {
+        var part = lab.getLabParts().get(partId);
+        ScienceGuideRequest request = new ScienceGuideRequest();
+        request.setStudentName("Barack");
+        request.setSetup(List.of("no starting traits are selected", "predation=medium", "food=limited"));
+        request.setObservations(answers(part.getObservations(), "I noticed that"));
+        request.setPredictions(answers(part.getPredictions(), "I predict that"));
+        request.setHistory(List.of(
+                "Student: what should I look at first?",
+                "Guide: Start by comparing how the population changes across the first few generations."));
+        return request;
+    }
+
+    public static String guideRequestJson(ScienceLab lab, int partId) {
+        try {
+            return MAPPER.writeValueAsString(guideRequest(lab, partId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** A chat transcript: the lab as the system prompt followed by alternating turns. */
+    public static List<Message> conversation(ScienceLab lab, int turns) {
+        List<Message> messages = new ArrayList<>();
+        messages.add(message("system", "You are a science lab guide for this lab: " + json(lab)));
+        for (int i = 0; i < turns; i++) {
+            var part = lab.getLabParts().get(i % lab.getLabParts().size());
+            messages.add(message("user", "Can you help me with " + part.getTitle() + "? " + part.getObservations()));
+            messages.add(message("assistant", "Let's look at the setup first: " + part.getSetup()));
+        }
+        return messages;
+    }
+
+    /** A simulation export with one row per generation. */
+    public static byte[] evidenceCsv(int rows) {
+        StringBuilder csv = new StringBuilder("generation,brown_fur,white_fur,long_teeth,floppy_ears,wolves,food\n");
+        for (int generation = 1; generation <= rows; generation++) {
+            int brown = 50 + (generation * 7) % 40;
+            int white = 50 + (generation * 13) % 60;
+            csv.append(generation).append(',')
+                    .append(brown).append(',')
+                    .append(white).append(',')
+                    .append((brown + white) / 3).append(',')
+                    .append(white / 2).append(',')
+                    .append(generation % 3 == 0 ? "many" : "few").append(',')
+                    .append(generation % 5 == 0 ? "limited" : "plenty").append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String json(Object value) {
+        try {
+            return MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<String> answers(List<?> questions, String prefix) {
+        List<String> answers = new ArrayList<>();
+        for (Object question : questions) {
+            answers.add(prefix + " " + String.valueOf(question).toLowerCase().replace("?", "."));
+        }
+        return answers;
+    }
+
+    private static Message message(String role, String content) {
+        Message message = new Message();
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+}
@@ -0,0 +1,59 @@
+package edu.regis.stemulator.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import edu.regis.stemulator.request.ScienceGuideRequest;
+
+/**
+ * Deserialization of the scienceGuideRequest multipart part. The controller currently
+ * builds a new ObjectMapper per request; the shared variants show what that costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScienceGuideRequestBenchmark {
+
+    private final ObjectMapper sharedMapper = new ObjectMapper();
+    private final ObjectReader sharedReader = sharedMapper.readerFor(ScienceGuideRequest.class);
+
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        json = BenchmarkFixtures.guideRequestJson(BenchmarkFixtures.largestLab(), 1);
+    }
+
+    @Benchmark
+    public ScienceGuideRequest newObjectMapperPerRequest() throws IOException {
+        return new ObjectMapper().readValue(json, ScienceGuideRequest.class);
+    }
+
+    @Benchmark
+    public ScienceGuideRequest sharedObjectMapper() throws IOException {
+        return sharedMapper.readValue(json, ScienceGuideRequest.class);
+    }
+
+    @Benchmark
+    public ScienceGuideRequest sharedObjectReader() throws IOException {
+        return sharedReader.readValue(json);
+    }
+}
@@ -0,0 +1,56 @@
+package edu.regis.stemulator.evidence;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.regis.stemulator.benchmark.BenchmarkFixtures;
+
+/**
+ * Evidence handling: summarizing the upload while streaming it, against decoding the
+ * whole file into a String as the guidance prompt used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvEvidenceBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int rows;
+
+    private final CsvEvidenceParser parser = new CsvEvidenceParser();
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        csv = BenchmarkFixtures.evidenceCsv(rows);
+    }
+
+    @Benchmark
+    public String decodeWholeFile() {
+        return new String(csv, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String streamingSummary() throws IOException {
+        CsvEvidence evidence = parser.parse(new ByteArrayInputStream(csv));
+        return evidence.toCsv() + evidence.describe();
+    }
+}
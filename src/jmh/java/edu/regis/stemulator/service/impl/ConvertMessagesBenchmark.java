@@ -0,0 +1,67 @@
+package edu.regis.stemulator.service.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.regis.stemulator.benchmark.BenchmarkFixtures;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+
+/**
+ * Conversion of request messages to Spring AI messages, done on every chat and
+ * student evaluation call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConvertMessagesBenchmark {
+
+    @Param({"4", "32"})
+    private int turns;
+
+    private ChatCompletionsServiceImpl chatCompletions;
+    private StudentEvalServiceImpl studentEval;
+    private List<Message> messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChatClient.Builder builder = mock(ChatClient.Builder.class);
+        when(builder.build()).thenReturn(mock(ChatClient.class));
+        chatCompletions = new ChatCompletionsServiceImpl(builder);
+        studentEval = new StudentEvalServiceImpl(builder, mock(ScienceLabRepository.class), new ObjectMapper(), mock(LlmGateway.class));
+        messages = BenchmarkFixtures.conversation(BenchmarkFixtures.largestLab(), turns);
+    }
+
+    @Benchmark
+    public List<org.springframework.ai.chat.messages.Message> chatCompletions() {
+        return chatCompletions.convertMessages(messages);
+    }
+
+    @Benchmark
+    public List<org.springframework.ai.chat.messages.Message> studentEval() {
+        return studentEval.convertMessages(messages);
+    }
+}
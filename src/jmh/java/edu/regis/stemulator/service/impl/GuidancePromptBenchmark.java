@@ -0,0 +1,76 @@
+package edu.regis.stemulator.service.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.chat.client.ChatClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.regis.stemulator.benchmark.BenchmarkFixtures;
+import edu.regis.stemulator.cache.LabSnapshot;
+import edu.regis.stemulator.evidence.CsvEvidence;
+import edu.regis.stemulator.evidence.CsvEvidenceParser;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.request.ScienceGuideRequest;
+
+/**
+ * Guidance prompt assembly: rendering the compiled science-guide template with the selected
+ * lab context, against serializing the lab on every request (what the snapshot replaced).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GuidancePromptBenchmark {
+
+    private static final int PART_ID = 1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ScienceGuideServiceImpl service;
+    private ScienceLab lab;
+    private LabSnapshot snapshot;
+    private ScienceGuideRequest request;
+    private CsvEvidence evidence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ChatClient.Builder builder = mock(ChatClient.Builder.class);
+        when(builder.build()).thenReturn(mock(ChatClient.class));
+        service = new ScienceGuideServiceImpl(builder, mock(ScienceLabRepository.class), objectMapper);
+
+        lab = BenchmarkFixtures.largestLab();
+        snapshot = LabSnapshot.of(lab, objectMapper);
+        request = BenchmarkFixtures.guideRequest(lab, PART_ID);
+        evidence = new CsvEvidenceParser().parse(new ByteArrayInputStream(BenchmarkFixtures.evidenceCsv(200)));
+    }
+
+    @Benchmark
+    public String buildGuidancePrompt() {
+        return service.buildGuidancePrompt(lab.getLabId(), PART_ID, request, evidence, snapshot, "Return structured data.");
+    }
+
+    @Benchmark
+    public String serializeLabPerRequest() throws IOException {
+        return objectMapper.writeValueAsString(lab);
+    }
+}
@@ -0,0 +1,100 @@
+package edu.regis.stemulator.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small thread-safe LRU cache bounded by entry count and by total weight,
+ * with an optional time-to-live measured from the time an entry was written.
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Duration timeToLive;
+    private final ToLongFunction<V> weigher;
+    private final Clock clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+
+    public BoundedLruCache(int maxEntries, long maxWeight, Duration timeToLive, ToLongFunction<V> weigher) {
+        this(maxEntries, maxWeight, timeToLive, weigher, Clock.systemUTC());
+    }
+
+    public BoundedLruCache(int maxEntries, long maxWeight, Duration timeToLive, ToLongFunction<V> weigher, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.timeToLive = timeToLive;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long weight = Math.max(0, weigher.applyAsLong(value));
+        // A single value heavier than the whole cache is never retained
+        if (maxWeight > 0 && weight > maxWeight) {
+            remove(key);
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight, clock.millis()));
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += weight;
+        evict();
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed == null) {
+            return null;
+        }
+        totalWeight -= removed.weight;
+        return removed.value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (eldest.hasNext() && (entries.size() > maxEntries || (maxWeight > 0 && totalWeight > maxWeight))) {
+            totalWeight -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return timeToLive != null && !timeToLive.isZero()
+                && clock.millis() - entry.writtenAt >= timeToLive.toMillis();
+    }
+
+    private record Entry<V>(V value, long weight, long writtenAt) { }
+}
@@ -0,0 +1,214 @@
+package edu.regis.stemulator.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import edu.regis.stemulator.config.GuidanceCacheProperties;
+import edu.regis.stemulator.evidence.CsvEvidence;
+import edu.regis.stemulator.model.CachedGuidance;
+import edu.regis.stemulator.repository.mongo.CachedGuidanceRepository;
+import edu.regis.stemulator.request.ScienceGuideRequest;
+import edu.regis.stemulator.response.ScienceGuideResponse;
+import edu.regis.stemulator.util.Digests;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of guidance responses keyed on a canonical form of the student submission.
+ * Students revisit a part and resubmit the same setup, observations and predictions,
+ * so equivalent submissions are answered from memory (or from the guidanceCache
+ * collection after a restart) instead of a new completion.
+ */
+@Slf4j
+@Component
+public class GuidanceResponseCache {
+
+    private static final String FIELD_SEPARATOR = "\u001f";
+    private static final String ITEM_SEPARATOR = "\u001e";
+
+    private final GuidanceCacheProperties properties;
+    private final CachedGuidanceRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+    private final BoundedLruCache<String, String> responses;
+
+    private final Counter memoryHits;
+    private final Counter mongoHits;
+    private final Counter misses;
+
+    @Autowired
+    public GuidanceResponseCache(
+            GuidanceCacheProperties properties,
+            CachedGuidanceRepository repository,
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry) {
+        this(properties, repository, mongoTemplate, meterRegistry, Clock.systemUTC());
+    }
+
+    GuidanceResponseCache(
+            GuidanceCacheProperties properties,
+            CachedGuidanceRepository repository,
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            Clock clock) {
+        this.properties = properties;
+        this.repository = properties.isPersistent() ? repository : null;
+        this.mongoTemplate = mongoTemplate;
+        this.clock = clock;
+        this.responses = new BoundedLruCache<>(
+                properties.getMaxEntries(), 0, properties.getTimeToLive(), guidance -> 1, clock);
+        this.memoryHits = counter(meterRegistry, "hit", "memory");
+        this.mongoHits = counter(meterRegistry, "hit", "mongo");
+        this.misses = counter(meterRegistry, "miss", "none");
+    }
+
+    /**
+     * Canonical key for a submission. The lab snapshot hash is part of the key, so
+     * regenerating a lab naturally retires every response cached for it. The guidance
+     * is addressed to the student by name, so the name is part of the key as well.
+     * {@code promptFingerprint} covers what shapes the prompt besides the submission,
+     * i.e. the template text and the lab context selected for it, so editing the
+     * template or changing the context mode retires cached responses too.
+     */
+    public String key(LabSnapshot snapshot, Integer partId, ScienceGuideRequest request, CsvEvidence evidence, String promptFingerprint) {
+        String canonical = String.join(FIELD_SEPARATOR,
+                snapshot.getLab().getLabId(),
+                snapshot.getHash(),
+                promptFingerprint,
+                normalizeName(request.getStudentName()),
+                String.valueOf(partId),
+                normalize(request.getSetup(), true),
+                normalize(request.getObservations(), true),
+                normalize(request.getPredictions(), true),
+                // Earlier turns change what the model should say next, so order is kept
+                normalize(request.getHistory(), false),
+                evidence != null ? evidence.getDigest() : "");
+        return Digests.sha256Hex(canonical);
+    }
+
+    public ScienceGuideResponse get(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        String guidance = responses.get(key);
+        if (guidance != null) {
+            memoryHits.increment();
+            return new ScienceGuideResponse(guidance);
+        }
+        Optional<CachedGuidance> stored = findStored(key);
+        if (stored.isPresent()) {
+            responses.put(key, stored.get().getGuidance());
+            mongoHits.increment();
+            return new ScienceGuideResponse(stored.get().getGuidance());
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, String labId, Integer partId, ScienceGuideResponse response) {
+        if (!properties.isEnabled() || response == null || response.getGuidance() == null) {
+            return;
+        }
+        responses.put(key, response.getGuidance());
+        if (repository == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        CachedGuidance cached = new CachedGuidance();
+        cached.setKey(key);
+        cached.setLabId(labId);
+        cached.setPartId(partId);
+        cached.setGuidance(response.getGuidance());
+        cached.setCreatedAt(now);
+        cached.setExpireAt(now.plus(properties.getTimeToLive()));
+        try {
+            repository.save(cached);
+        } catch (RuntimeException e) {
+            // The in-memory copy still serves this node; persistence is best effort
+            log.warn("Could not persist cached guidance {}: {}", key, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureTtlIndex() {
+        if (repository == null || mongoTemplate == null) {
+            return;
+        }
+        Thread.ofVirtual().name("guidance-cache-index").start(() -> {
+            try {
+                mongoTemplate.indexOps(CachedGuidance.class)
+                        .createIndex(new Index().on("expireAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            } catch (RuntimeException e) {
+                log.warn("Could not create TTL index on guidanceCache: {}", e.getMessage());
+            }
+        });
+    }
+
+    private Optional<CachedGuidance> findStored(String key) {
+        if (repository == null) {
+            return Optional.empty();
+        }
+        try {
+            // The TTL monitor runs about once a minute, so expiry is also checked here
+            return repository.findById(key)
+                    .filter(cached -> cached.getGuidance() != null)
+                    .filter(cached -> cached.getExpireAt() == null || cached.getExpireAt().isAfter(clock.instant()));
+        } catch (RuntimeException e) {
+            log.warn("Could not read cached guidance {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Only whitespace is normalized; the name is echoed in the guidance as written
+    static String normalizeName(String studentName) {
+        return studentName != null ? studentName.strip().replaceAll("\\s+", " ") : "";
+    }
+
+    static String normalize(List<?> values, boolean ignoreOrder) {
+        if (values == null) {
+            return "";
+        }
+        List<String> normalized = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString()
+                    .toLowerCase(Locale.ROOT)
+                    .replaceAll("\\s*=\\s*", "=")
+                    .replaceAll("\\s+", " ")
+                    .replaceAll("[.!?]+$", "")
+                    .trim();
+            if (!text.isEmpty()) {
+                normalized.add(text);
+            }
+        }
+        if (ignoreOrder) {
+            Collections.sort(normalized);
+        }
+        return String.join(ITEM_SEPARATOR, normalized);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result, String tier) {
+        return Counter.builder("stemulator.guidance.cache")
+                .description("Guidance cache lookups")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
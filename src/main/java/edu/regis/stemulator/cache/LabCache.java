@@ -0,0 +1,214 @@
+package edu.regis.stemulator.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.regis.stemulator.config.LabCacheProperties;
+import edu.regis.stemulator.model.LabPart;
+import edu.regis.stemulator.model.LabSummary;
+import edu.regis.stemulator.model.LearningGoals;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-through cache in front of {@link ScienceLabRepository}. Labs are written once
+ * and then read by every student in a class, so reads are served from memory and
+ * every write through this cache (or a change stream event) invalidates it.
+ */
+@Slf4j
+@Component
+public class LabCache {
+
+    private final ScienceLabRepository labRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final BoundedLruCache<String, LabSnapshot> labs;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    // Concurrent misses for the same lab share a single Mongo read
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<LabSnapshot>>> loading = new ConcurrentHashMap<>();
+
+    // Bumped on every write so that a load racing with a write never caches the stale document
+    private final AtomicLong version = new AtomicLong();
+    private volatile CachedList allLabs;
+
+    public LabCache(ScienceLabRepository labRepository) {
+        this(labRepository, new ObjectMapper());
+    }
+
+    public LabCache(ScienceLabRepository labRepository, ObjectMapper objectMapper) {
+        this(labRepository, objectMapper, new LabCacheProperties());
+    }
+
+    @Autowired
+    public LabCache(ScienceLabRepository labRepository, ObjectMapper objectMapper, LabCacheProperties properties) {
+        this(labRepository, objectMapper, properties, Clock.systemUTC());
+    }
+
+    LabCache(ScienceLabRepository labRepository, ObjectMapper objectMapper, LabCacheProperties properties, Clock clock) {
+        this.labRepository = labRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.isEnabled();
+        this.timeToLive = properties.getTimeToLive();
+        this.clock = clock;
+        this.labs = new BoundedLruCache<>(
+                properties.getMaxEntries(),
+                properties.getMaxWeight().toBytes(),
+                properties.getTimeToLive(),
+                LabSnapshot::estimateWeight,
+                clock);
+    }
+
+    public Optional<ScienceLab> findById(String labId) {
+        return findSnapshotById(labId).map(LabSnapshot::getLab);
+    }
+
+    public Optional<LabSnapshot> findSnapshotById(String labId) {
+        if (!enabled) {
+            return labRepository.findById(labId).map(this::snapshot);
+        }
+        LabSnapshot cached = labs.get(labId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        CompletableFuture<Optional<LabSnapshot>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<LabSnapshot>> existing = loading.putIfAbsent(labId, load);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            long versionBeforeLoad = version.get();
+            Optional<LabSnapshot> loaded = labRepository.findById(labId).map(this::snapshot);
+            loaded.ifPresent(snapshot -> {
+                if (version.get() == versionBeforeLoad) {
+                    labs.put(labId, snapshot);
+                }
+            });
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(labId, load);
+        }
+    }
+
+    public List<ScienceLab> findAll() {
+        if (!enabled) {
+            return labRepository.findAll();
+        }
+        CachedList cached = allLabs;
+        if (cached != null && cached.version == version.get() && !expired(cached)) {
+            return cached.labs;
+        }
+        long versionBeforeLoad = version.get();
+        long loadedAt = clock.millis();
+        List<ScienceLab> loaded = List.copyOf(labRepository.findAll());
+        if (version.get() == versionBeforeLoad) {
+            allLabs = new CachedList(loaded, versionBeforeLoad, loadedAt);
+        }
+        return loaded;
+    }
+
+    // Summaries are a small projection read straight from Mongo; only full labs are cached
+    public List<LabSummary> findSummaries(String afterLabId, int limit) {
+        return afterLabId == null
+                ? labRepository.findAllByOrderByLabIdAsc(Limit.of(limit))
+                : labRepository.findByLabIdGreaterThanOrderByLabIdAsc(afterLabId, Limit.of(limit));
+    }
+
+    public Page<LabSummary> searchSummaries(String discipline, String topic, String subTopic, String text, Pageable pageable) {
+        return labRepository.searchSummaries(discipline, topic, subTopic, text, pageable);
+    }
+
+    public ScienceLab save(ScienceLab lab) {
+        ScienceLab saved = labRepository.save(lab);
+        evict(saved.getLabId());
+        if (enabled) {
+            labs.put(saved.getLabId(), snapshot(saved));
+        }
+        return saved;
+    }
+
+    public void evict(String labId) {
+        version.incrementAndGet();
+        allLabs = null;
+        if (labId != null) {
+            labs.remove(labId);
+        }
+    }
+
+    public void evictAll() {
+        version.incrementAndGet();
+        allLabs = null;
+        labs.clear();
+        log.debug("Lab cache cleared");
+    }
+
+    // Same staleness bound as the per-lab entries, for writes made by other nodes
+    private boolean expired(CachedList cached) {
+        return timeToLive != null && !timeToLive.isZero()
+                && clock.millis() - cached.loadedAt >= timeToLive.toMillis();
+    }
+
+    private LabSnapshot snapshot(ScienceLab lab) {
+        return LabSnapshot.of(lab, objectMapper);
+    }
+
+    // Rough heap footprint of a lab: two bytes per character of its text content
+    static long estimateWeight(ScienceLab lab) {
+        long chars = length(lab.getLabId()) + length(lab.getDiscipline()) + length(lab.getTopic())
+                + length(lab.getSubTopic()) + length(lab.getDescription());
+        LearningGoals goals = lab.getLearningGoals();
+        if (goals != null) {
+            chars += length(goals.getBigIdea()) + length(goals.getObjectives()) + length(goals.getSuccessCriteria());
+        }
+        if (lab.getLabParts() != null) {
+            for (LabPart part : lab.getLabParts()) {
+                chars += length(part.getTitle()) + length(part.getSetup()) + length(part.getObservations())
+                        + length(part.getEvidence()) + length(part.getPredictions());
+            }
+        }
+        return 2 * chars;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static long length(Collection<?> values) {
+        if (values == null) {
+            return 0;
+        }
+        long total = 0;
+        for (Object value : values) {
+            total += value == null ? 0 : value.toString().length();
+        }
+        return total;
+    }
+
+    private record CachedList(List<ScienceLab> labs, long version, long loadedAt) { }
+}
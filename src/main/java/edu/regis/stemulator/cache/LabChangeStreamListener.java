@@ -0,0 +1,106 @@
+package edu.regis.stemulator.cache;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+import edu.regis.stemulator.config.LabCacheProperties;
+import edu.regis.stemulator.model.ScienceLab;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@link LabCache} coherent across nodes by evicting labs that change in Mongo,
+ * whichever node (or import script) wrote them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stemulator.lab-cache.change-stream", name = "enabled", havingValue = "true")
+public class LabChangeStreamListener implements SmartLifecycle {
+
+    private final MongoTemplate mongoTemplate;
+    private final LabCache labCache;
+    private final LabCacheProperties properties;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    public LabChangeStreamListener(MongoTemplate mongoTemplate, LabCache labCache, LabCacheProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.labCache = labCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("lab-change-stream").start(this::watch);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        var current = cursor;
+        if (current != null) {
+            current.close();
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watch() {
+        String collection = mongoTemplate.getCollectionName(ScienceLab.class);
+        while (running) {
+            try {
+                try (var changes = mongoTemplate.getCollection(collection).watch().cursor()) {
+                    cursor = changes;
+                    // Anything may have changed while we were not watching, so no resume token is needed
+                    labCache.evictAll();
+                    while (running && changes.hasNext()) {
+                        onChange(changes.next());
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lab change stream interrupted, retrying in {}", properties.getChangeStream().getRetryDelay(), e);
+                labCache.evictAll();
+                sleep();
+            }
+        }
+    }
+
+    private void onChange(ChangeStreamDocument<Document> change) {
+        BsonDocument key = change.getDocumentKey();
+        BsonValue id = key == null ? null : key.get("_id");
+        if (id != null && id.isString()) {
+            labCache.evict(id.asString().getValue());
+        } else {
+            // drop, rename and invalidate events carry no document key
+            labCache.evictAll();
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.getChangeStream().getRetryDelay().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package edu.regis.stemulator.cache;
+
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.regis.stemulator.model.LabPart;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.util.Digests;
+import lombok.Getter;
+
+/**
+ * A lab together with its JSON serialization, computed once when the lab is loaded or
+ * saved so that guidance prompts can embed it without re-serializing per request.
+ */
+@Getter
+public class LabSnapshot {
+
+    private final ScienceLab lab;
+    private final String json;
+    // SHA-256 of the JSON, changes whenever the stored document changes
+    private final String hash;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final ObjectMapper objectMapper;
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<Long, String> partContextJson = new ConcurrentHashMap<>();
+
+    private LabSnapshot(ScienceLab lab, String json, ObjectMapper objectMapper) {
+        this.lab = lab;
+        this.json = json;
+        this.hash = Digests.sha256Hex(json);
+        this.objectMapper = objectMapper;
+    }
+
+    public static LabSnapshot of(ScienceLab lab, ObjectMapper objectMapper) {
+        return new LabSnapshot(lab, serialize(objectMapper, lab), objectMapper);
+    }
+
+    /**
+     * Guidance context for one lab part: a short lab summary, the part itself and the
+     * objective and success criterion at the same index. Empty when the index has no part.
+     */
+    public String getPartContextJson(int partIndex, int summaryMaxChars) {
+        long key = ((long) partIndex << 32) | (summaryMaxChars & 0xffffffffL);
+        return partContextJson.computeIfAbsent(key, ignored -> {
+            LabPart labPart = labPart(partIndex);
+            if (labPart == null) {
+                return "";
+            }
+            Map<String, Object> context = new LinkedHashMap<>();
+            context.put("labId", lab.getLabId());
+            context.put("discipline", lab.getDiscipline());
+            context.put("topic", lab.getTopic());
+            context.put("subTopic", lab.getSubTopic());
+            context.put("summary", summarize(lab.getDescription(), summaryMaxChars));
+            var goals = lab.getLearningGoals();
+            if (goals != null) {
+                context.put("bigIdea", goals.getBigIdea());
+                context.put("objective", item(goals.getObjectives(), partIndex));
+                context.put("successCriterion", item(goals.getSuccessCriteria(), partIndex));
+            }
+            context.put("labPart", labPart);
+            return serialize(objectMapper, context);
+        });
+    }
+
+    public long estimateWeight() {
+        return 2L * json.length() + LabCache.estimateWeight(lab);
+    }
+
+    private LabPart labPart(int index) {
+        var labParts = lab.getLabParts();
+        return labParts != null && index >= 0 && index < labParts.size() ? labParts.get(index) : null;
+    }
+
+    private static Object item(List<?> items, int index) {
+        return items != null && index >= 0 && index < items.size() ? items.get(index) : null;
+    }
+
+    // Whole sentences up to maxChars, or a word-boundary cut when the first sentence is longer
+    static String summarize(String text, int maxChars) {
+        if (text == null || text.length() <= maxChars) {
+            return text;
+        }
+        String head = text.substring(0, maxChars);
+        int sentenceEnd = Math.max(head.lastIndexOf(". "), Math.max(head.lastIndexOf("! "), head.lastIndexOf("? ")));
+        if (sentenceEnd > 0) {
+            return head.substring(0, sentenceEnd + 1);
+        }
+        int wordEnd = head.lastIndexOf(' ');
+        return (wordEnd > 0 ? head.substring(0, wordEnd) : head) + "...";
+    }
+
+    // A lab that cannot be serialized must not reach the model as an empty context
+    private static String serialize(ObjectMapper objectMapper, Object value) {
+        try {
+            String json = objectMapper.writeValueAsString(value);
+            return json == null ? "" : json;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Unable to serialize science lab", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.chat-sessions")
+public class ChatSessionProperties {
+	// Also keep sessions in the chatSessions collection so they survive a restart
+	private boolean persistent = true;
+	// Sessions expire this long after their last message
+	private Duration timeToLive = Duration.ofHours(2);
+	// Sessions held in memory on this node
+	private int maxSessions = 10000;
+	private int maxMessages = 500;
+}
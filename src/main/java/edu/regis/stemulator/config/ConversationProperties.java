@@ -0,0 +1,28 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.conversation")
+public class ConversationProperties {
+	private Compaction compaction = new Compaction();
+
+	@Data
+	public static class Compaction {
+		private boolean enabled = true;
+		// Conversations estimated below this many tokens are sent verbatim
+		private int minTokens = 2000;
+		// Latest non-system messages always sent verbatim
+		private int recentMessages = 6;
+		// Upper bound on the estimated input tokens of one request after compaction
+		private int maxInputTokens = 8000;
+		private int summaryMaxWords = 200;
+		// Rolling summaries kept per conversation so older turns are summarized once
+		private int cacheMaxEntries = 10000;
+		private Duration cacheTimeToLive = Duration.ofHours(2);
+	}
+}
@@ -0,0 +1,20 @@
+package edu.regis.stemulator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.evidence")
+public class EvidenceProperties {
+	// Reading stops at either limit and the summary is marked as truncated
+	private DataSize maxBytes = DataSize.ofMegabytes(32);
+	private int maxRows = 500_000;
+	private int maxColumns = 64;
+	// Longest record in characters; a quoted field left open runs into it and reading stops there
+	private int maxRecordChars = 64 * 1024;
+	// Rows quoted verbatim in the prompt: the first headRows plus an even sample of the rest
+	private int headRows = 5;
+	private int sampleRows = 20;
+}
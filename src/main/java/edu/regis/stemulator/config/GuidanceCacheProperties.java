@@ -0,0 +1,17 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.guidance-cache")
+public class GuidanceCacheProperties {
+	private boolean enabled = true;
+	private int maxEntries = 10000;
+	private Duration timeToLive = Duration.ofHours(24);
+	// Also keep responses in the guidanceCache collection so they survive restarts
+	private boolean persistent = true;
+}
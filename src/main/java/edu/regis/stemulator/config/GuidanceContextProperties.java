@@ -0,0 +1,18 @@
+package edu.regis.stemulator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.guidance-context")
+public class GuidanceContextProperties {
+	// PART sends only the requested lab part with its goals and a lab summary; FULL sends the whole lab
+	private Mode mode = Mode.PART;
+	private int summaryMaxChars = 400;
+
+	public enum Mode {
+		PART,
+		FULL
+	}
+}
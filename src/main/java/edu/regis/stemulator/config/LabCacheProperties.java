@@ -0,0 +1,26 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.lab-cache")
+public class LabCacheProperties {
+	private boolean enabled = true;
+	private int maxEntries = 500;
+	private DataSize maxWeight = DataSize.ofMegabytes(64);
+	// Upper bound on staleness when writes happen outside this node and the change stream is off
+	private Duration timeToLive = Duration.ofMinutes(10);
+	private ChangeStream changeStream = new ChangeStream();
+
+	@Data
+	public static class ChangeStream {
+		// Requires a replica set or sharded cluster
+		private boolean enabled = false;
+		private Duration retryDelay = Duration.ofSeconds(5);
+	}
+}
@@ -0,0 +1,19 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.lab-jobs")
+public class LabJobProperties {
+	// Lab generations running at once; further jobs wait in the queue
+	private int workers = 4;
+	private int queueCapacity = 100;
+	// Re-enqueue jobs left queued or running by a node whose lease on them ran out
+	private boolean recoverOnStartup = true;
+	// A node holds its jobs this long past its last renewal; leases are renewed every third of it
+	private Duration leaseDuration = Duration.ofMinutes(2);
+}
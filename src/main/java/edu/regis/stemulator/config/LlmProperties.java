@@ -0,0 +1,84 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import edu.regis.stemulator.llm.LlmEndpoint;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.llm")
+public class LlmProperties {
+	// Upper bound on concurrent calls per downstream model, keyed by model name
+	private Map<String, Integer> maxConcurrency = new HashMap<>();
+	private int defaultMaxConcurrency = 200;
+	// How long a request waits for a free slot before failing with 503
+	private Duration acquireTimeout = Duration.ofSeconds(30);
+	private Limiter limiter = new Limiter();
+	// Identical prompts in flight at the same time share one upstream call
+	private boolean coalesce = true;
+	// Callers beyond this many waiters on one in-flight prompt make their own call
+	private int maxCoalescedWaiters = 64;
+	// Upper bound on a call, retries included, unless the endpoint has its own
+	private Duration defaultDeadline = Duration.ofSeconds(60);
+	private Map<LlmEndpoint, Duration> deadlines = new HashMap<>();
+	// A stream that goes this long without a token is failed
+	private Duration streamIdleTimeout = Duration.ofSeconds(30);
+	// Endpoints listed here get a second, parallel request when the first is still unanswered after the delay
+	private Map<LlmEndpoint, Duration> hedgeDelays = new HashMap<>();
+	private Retry retry = new Retry();
+	private Circuit circuit = new Circuit();
+	// Model and options per endpoint; endpoints left out use spring.ai.openai.chat.options
+	private Map<LlmEndpoint, Route> routes = new HashMap<>();
+
+	@Data
+	public static class Limiter {
+		// Off: each model gets a fixed limit of its max concurrency
+		private boolean adaptive = true;
+		private int initialLimit = 20;
+		private int minLimit = 2;
+		// The limit is multiplied by this when the model throttles, fails over or times out
+		private double backoffRatio = 0.9;
+		// Calls slower than this count as overload
+		private Duration latencyThreshold = Duration.ofSeconds(60);
+		// Calls queued per model beyond this are rejected at once
+		private int maxQueueSize = 500;
+		// Sent as Retry-After on the 503
+		private Duration retryAfter = Duration.ofSeconds(5);
+	}
+
+	// Throttled, failed-over and timed out calls are retried while the deadline allows
+	@Data
+	public static class Retry {
+		// Attempts in total, the first included
+		private int maxAttempts = 2;
+		// Doubled after each attempt, with jitter
+		private Duration backoff = Duration.ofMillis(500);
+	}
+
+	@Data
+	public static class Circuit {
+		private boolean enabled = true;
+		// Opens when this share of the last window-size calls failed upstream
+		private double failureRateThreshold = 0.5;
+		private int windowSize = 20;
+		// Fewer calls than this in the window never open it
+		private int minimumCalls = 10;
+		// Calls fail fast for this long, then trial calls decide whether it closes
+		private Duration openDuration = Duration.ofSeconds(30);
+		private int halfOpenCalls = 3;
+	}
+
+	@Data
+	public static class Route {
+		private String model;
+		private Double temperature;
+		private Integer maxTokens;
+		// Prompts estimated above this many tokens go to the large model instead
+		private Integer largePromptTokens;
+		private String largeModel;
+	}
+}
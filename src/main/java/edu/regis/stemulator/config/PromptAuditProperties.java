@@ -0,0 +1,32 @@
+package edu.regis.stemulator.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import edu.regis.stemulator.llm.LlmEndpoint;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.prompt-audit")
+public class PromptAuditProperties {
+	private boolean enabled = true;
+	// Transcripts waiting to be written; new ones are dropped while the buffer is full
+	private int bufferSize = 1024;
+	// Fraction of calls audited and the longest prompt or response text logged, unless an endpoint overrides them
+	private double sampleRate = 0.05;
+	private int maxChars = 2000;
+	private Map<LlmEndpoint, Endpoint> endpoints = new HashMap<>();
+	// Also store sampled transcripts untruncated in the capped promptTranscripts collection
+	private boolean persistent = false;
+	private DataSize cappedSize = DataSize.ofMegabytes(64);
+	private long cappedMaxDocuments = 10000;
+
+	@Data
+	public static class Endpoint {
+		private Double sampleRate;
+		private Integer maxChars;
+	}
+}
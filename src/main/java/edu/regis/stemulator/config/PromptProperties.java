@@ -0,0 +1,16 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.prompts")
+public class PromptProperties {
+	// Directory holding <name>.txt templates, e.g. file:/etc/stemulator/prompts/
+	private String location = "classpath:prompts/";
+	// How often a template's resource is checked for changes; zero disables reloading
+	private Duration reloadInterval = Duration.ZERO;
+}
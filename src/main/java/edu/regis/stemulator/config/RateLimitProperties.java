@@ -0,0 +1,48 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.rate-limit")
+public class RateLimitProperties {
+	private boolean enabled = true;
+	// POSTs under these path prefixes are admitted through the buckets
+	private List<String> paths = new ArrayList<>(List.of(
+			"/stemulator/v1/guides", "/stemulator/v1/chat", "/stemulator/v1/student_eval"));
+	// Request bodies are charged at this many bytes per token, plus the expected completion
+	private int bytesPerToken = 4;
+	private int completionTokens = 800;
+	// Keyed by X-Student-Id, falling back to the chat session; requests with neither are not charged per student
+	private Budget student = new Budget(30, 10, 20_000, 20_000);
+	// Keyed by X-Class-Id, falling back to the lab being worked on
+	private Budget classroom = new Budget(600, 100, 400_000, 200_000);
+	// Keyed by X-API-Key
+	private Budget apiKey = new Budget(1200, 200, 1_000_000, 500_000);
+	// Keyed by client address, for requests that name neither a class nor an API key
+	private Budget address = new Budget(300, 60, 200_000, 100_000);
+	// At most this many buckets are tracked; a request that needs a new one beyond it is answered 429
+	private int maxKeys = 100_000;
+	// Full buckets are swept at most this often once the cap is reached
+	private Duration sweepInterval = Duration.ofSeconds(1);
+	// Upper bound on the Retry-After sent with a 429
+	private Duration maxRetryAfter = Duration.ofMinutes(5);
+
+	// Zero turns a limit off
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Budget {
+		private int requestsPerMinute;
+		private int requestBurst;
+		private long tokensPerMinute;
+		private long tokenBurst;
+	}
+}
@@ -0,0 +1,24 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.screenshots")
+public class ScreenshotProperties {
+	// Off: screenshots are sent to the model exactly as uploaded
+	private boolean enabled = true;
+	// Longest side after downscaling; vision input is billed per 512px tile
+	private int maxDimension = 1536;
+	// jpeg or png; jpeg is far smaller for screenshots of simulations
+	private String format = "jpeg";
+	private float quality = 0.85f;
+	// Prepared screenshots kept by hash of the upload, so a re-submitted screenshot is not decoded again
+	private int cacheMaxEntries = 256;
+	private DataSize cacheMaxSize = DataSize.ofMegabytes(64);
+	private Duration cacheTimeToLive = Duration.ofHours(1);
+}
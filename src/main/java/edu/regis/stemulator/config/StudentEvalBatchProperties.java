@@ -0,0 +1,17 @@
+package edu.regis.stemulator.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "stemulator.student-eval-batch")
+public class StudentEvalBatchProperties {
+	// Transcripts of one batch evaluated at once; the LLM concurrency limit still applies on top
+	private int maxParallelism = 8;
+	// An evaluation still running after this is reported as timed out
+	private Duration itemTimeout = Duration.ofSeconds(90);
+	private int maxItems = 200;
+}
@@ -1,21 +1,30 @@
 package edu.regis.stemulator.controller;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.ai.chat.messages.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.HandlerMapping;
 
 import edu.regis.stemulator.model.Message;
 import edu.regis.stemulator.request.ChatCompletionsRequest;
+import edu.regis.stemulator.response.ChatCompletionsChunk;
+import edu.regis.stemulator.response.ChatCompletionsChunk.Delta;
 import edu.regis.stemulator.service.ChatCompletionsService;
+import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/stemulator/v1/chat/completions")
@@ -28,9 +37,32 @@ public class ChatCompletionsController {
 	
 	@PostMapping
     @ResponseStatus(HttpStatus.OK)
-    public Message postMessages(@RequestBody ChatCompletionsRequest chatCompletionsRequest
+    public Object postMessages(@RequestBody ChatCompletionsRequest chatCompletionsRequest,
+    		HttpServletRequest servletRequest
     ) throws Exception { 	
-    	return chatCompletionsService.postMessages(chatCompletionsRequest.getMessages());
+    	if (chatCompletionsRequest.isStream()) {
+    		// Clients that send "stream": true usually accept application/json, so the event stream is chosen here
+    		servletRequest.setAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, Set.of(MediaType.TEXT_EVENT_STREAM));
+    		return streamMessages(chatCompletionsRequest);
+    	}
+    	return chatCompletionsService.postMessages(chatCompletionsRequest.getMessages(), chatCompletionsRequest.getUser());
+    }
+	
+	// Selected with "Accept: text/event-stream" or "stream": true; emits OpenAI-compatible chunks terminated by "data: [DONE]"
+	@PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamMessages(@RequestBody ChatCompletionsRequest chatCompletionsRequest
+    ) throws Exception {
+		Flux<String> tokens = chatCompletionsService.streamMessages(chatCompletionsRequest.getMessages(), chatCompletionsRequest.getUser());
+		
+		return Flux.defer(() -> {
+			String id = "chatcmpl-" + UUID.randomUUID();
+			long created = Instant.now().getEpochSecond();
+			return Flux.just(new ChatCompletionsChunk(id, created, new Delta("assistant", ""), null))
+					.concatWith(tokens.map(token -> new ChatCompletionsChunk(id, created, new Delta(null, token), null)))
+					.concatWith(Flux.just(new ChatCompletionsChunk(id, created, new Delta(), "stop")))
+					.<ServerSentEvent<Object>>map(chunk -> ServerSentEvent.builder((Object) chunk).build())
+					.concatWith(Flux.just(ServerSentEvent.builder((Object) "[DONE]").build()));
+		});
     }
 	
 	
@@ -0,0 +1,59 @@
+package edu.regis.stemulator.controller;
+
+import java.net.URI;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.regis.stemulator.model.ChatSession;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.request.ChatCompletionsRequest;
+import edu.regis.stemulator.service.ChatSessionService;
+
+// Server-held conversations: each turn sends only the new message instead of the whole transcript
+@RestController
+@RequestMapping("/stemulator/v1/chat/sessions")
+public class ChatSessionController {
+	private ChatSessionService chatSessionService;
+
+	public ChatSessionController(ChatSessionService chatSessionService) {
+		this.chatSessionService = chatSessionService;
+	}
+
+	// Optional body seeds the session, e.g. with the system prompt
+	@PostMapping
+	public ResponseEntity<ChatSession> createSession(@RequestBody(required = false) ChatCompletionsRequest chatCompletionsRequest) {
+		List<Message> messages = chatCompletionsRequest != null ? chatCompletionsRequest.getMessages() : null;
+		ChatSession session = chatSessionService.createSession(messages);
+		return ResponseEntity.created(URI.create("/stemulator/v1/chat/sessions/" + session.getSessionId()))
+				.body(session);
+	}
+
+	@GetMapping("/{sessionId}")
+	public ResponseEntity<ChatSession> getSession(@PathVariable("sessionId") String sessionId) {
+		return chatSessionService.getSession(sessionId)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@PostMapping("/{sessionId}/messages")
+	public ResponseEntity<Message> postMessage(@PathVariable("sessionId") String sessionId, @RequestBody Message message) {
+		return chatSessionService.postMessage(sessionId, message)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+
+	@DeleteMapping("/{sessionId}")
+	public ResponseEntity<Void> deleteSession(@PathVariable("sessionId") String sessionId) {
+		return chatSessionService.deleteSession(sessionId)
+				? ResponseEntity.noContent().build()
+				: ResponseEntity.notFound().build();
+	}
+}
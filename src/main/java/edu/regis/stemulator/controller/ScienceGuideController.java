@@ -3,6 +3,7 @@ package edu.regis.stemulator.controller;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -17,7 +19,11 @@ import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
 import edu.regis.stemulator.request.ScienceGuideRequest;
 import edu.regis.stemulator.response.ScienceGuideResponse;
 import edu.regis.stemulator.service.ScienceGuideService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+@Slf4j
 @RestController
 @RequestMapping("/stemulator/v1/guides")
 public class ScienceGuideController {
@@ -50,4 +56,43 @@ public class ScienceGuideController {
     	return scienceGuideService.getGuidance(labId, partId, request, evidence);           
     }
     
+    // Streams "token" events as the model produces them, then one "guidance" event with the full ScienceGuideResponse
+    @PostMapping(
+    		path = "/lab/{labId}/part/{partId}/stream", 
+    		consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+    		produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamGuidance(
+    		@PathVariable("labId") String labId,
+    		@PathVariable("partId") Integer partId,
+    		@RequestPart("scienceGuideRequest") String scienceGuideRequest,
+    	    @RequestPart(value = "evidence", required = false) MultipartFile evidence		
+    ) throws Exception {
+    	ScienceGuideRequest request = new ObjectMapper().readValue(scienceGuideRequest, ScienceGuideRequest.class);
+    	Flux<String> tokens = scienceGuideService.streamGuidance(labId, partId, request, evidence);
+    	
+    	return Flux.defer(() -> {
+    		StringBuilder guidance = new StringBuilder();
+    		return tokens
+    				.doOnNext(guidance::append)
+    				.map(token -> ServerSentEvent.<Object>builder(token).event("token").build())
+    				.concatWith(Mono.fromSupplier(() -> ServerSentEvent.<Object>builder(new ScienceGuideResponse(guidance.toString()))
+    						.event("guidance")
+    						.build()))
+    				.onErrorResume(e -> {
+    					log.error("Streaming guidance failed for lab {} part {}", labId, partId, e);
+    					return Mono.just(ServerSentEvent.<Object>builder(errorMessage(e))
+    							.event("error")
+    							.build());
+    				});
+    	});
+    }
+    
+    // Only the status reason is shown to the student; upstream and database messages stay in the log
+    private static String errorMessage(Throwable e) {
+    	if (e instanceof ResponseStatusException statusException && statusException.getReason() != null) {
+    		return statusException.getReason();
+    	}
+    	return "Guidance failed, please try again";
+    }
+    
 }
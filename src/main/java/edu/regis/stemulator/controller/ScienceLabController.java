@@ -1,27 +1,38 @@
 package edu.regis.stemulator.controller;
 
+import java.net.URI;
 import java.util.List;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import edu.regis.stemulator.model.LabGenerationJob;
+import edu.regis.stemulator.model.LabSummary;
 import edu.regis.stemulator.model.ScienceLab;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.response.LabSearchPage;
+import edu.regis.stemulator.response.LabSummaryPage;
+import edu.regis.stemulator.service.LabGenerationJobService;
 import edu.regis.stemulator.service.ScienceLabService;
+import edu.regis.stemulator.util.Digests;
 
 @RestController
 @RequestMapping("/stemulator/v1/labs")
 public class ScienceLabController {
 
     private ScienceLabService scienceLabService;
+    private LabGenerationJobService labGenerationJobService;
 
     public ScienceLabController(
     		ScienceLabService scienceLabService,
+    		LabGenerationJobService labGenerationJobService,
     		ScienceLabRepository labRepository) {
         this.scienceLabService = scienceLabService;
+        this.labGenerationJobService = labGenerationJobService;
     }
     
     @GetMapping()
@@ -30,6 +41,35 @@ public class ScienceLabController {
 		return ResponseEntity.ok(labList);	            
     }
     
+    // Catalog listing without learning goals or parts; a matching If-None-Match gets 304
+    @GetMapping("/summaries")
+    public ResponseEntity<LabSummaryPage> getLabSummaries(
+    		@RequestParam(value = "cursor", required = false) String cursor,
+    		@RequestParam(value = "size", defaultValue = "20") int size) {
+    	LabSummaryPage page;
+    	try {
+    		page = scienceLabService.getLabSummaries(cursor, size);
+    	} catch (IllegalArgumentException e) {
+    		return ResponseEntity.badRequest().build();
+    	}
+    	return ResponseEntity.ok()
+    			.eTag(etag(page))
+    			.cacheControl(CacheControl.noCache())
+    			.body(page);
+    }
+    
+    // Indexed catalog search; q is matched against the description and learning goals
+    @GetMapping("/search")
+    public ResponseEntity<LabSearchPage> searchLabs(
+    		@RequestParam(value = "discipline", required = false) String discipline,
+    		@RequestParam(value = "topic", required = false) String topic,
+    		@RequestParam(value = "subTopic", required = false) String subTopic,
+    		@RequestParam(value = "q", required = false) String text,
+    		@RequestParam(value = "page", defaultValue = "0") int page,
+    		@RequestParam(value = "size", defaultValue = "20") int size) {
+    	return ResponseEntity.ok(scienceLabService.searchLabs(discipline, topic, subTopic, text, page, size));
+    }
+    
     @GetMapping("/{labId}")
     public ResponseEntity<ScienceLab> getLab(@PathVariable("labId") String labId) {
 		ScienceLab lab = scienceLabService.getLab(labId);
@@ -53,4 +93,41 @@ public class ScienceLabController {
     ) throws Exception { 	
     	return scienceLabService.createLab(labId, discipline, topic, subTopic, expertise, simulation, screenshot);
     }
+    
+    // Queues the generation and returns immediately; poll GET /jobs/{jobId} for the result
+    @PostMapping(path = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<LabGenerationJob> submitLabJob(
+    		@RequestParam(value = "labId") String labId,
+    		@RequestParam(value = "discipline") String discipline,
+    		@RequestParam(value = "topic") String topic,
+    		@RequestParam(value = "subTopic") String subTopic,
+            @RequestParam(value = "expertise") String expertise,
+            @RequestParam(value = "simulation") String simulation,
+            @RequestParam("screenshot") MultipartFile screenshot
+    ) throws Exception {
+    	LabGenerationJob job = labGenerationJobService.submit(labId, discipline, topic, subTopic, expertise, simulation, screenshot);
+    	return ResponseEntity.accepted()
+    			.location(URI.create("/stemulator/v1/labs/jobs/" + job.getJobId()))
+    			.body(job);
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<LabGenerationJob> getLabJob(@PathVariable("jobId") String jobId) {
+    	return labGenerationJobService.getJob(jobId)
+    			.map(ResponseEntity::ok)
+    			.orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    private static String etag(LabSummaryPage page) {
+    	StringBuilder content = new StringBuilder();
+    	for (LabSummary summary : page.getLabs()) {
+    		content.append(summary.getLabId()).append('\u001f')
+    				.append(summary.getDiscipline()).append('\u001f')
+    				.append(summary.getTopic()).append('\u001f')
+    				.append(summary.getSubTopic()).append('\u001f')
+    				.append(summary.getDescription()).append('\u001e');
+    	}
+    	content.append(page.getNextCursor());
+    	return Digests.sha256Hex(content.toString());
+    }
 }
\ No newline at end of file
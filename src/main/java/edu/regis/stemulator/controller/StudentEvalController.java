@@ -3,6 +3,7 @@ package edu.regis.stemulator.controller;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -18,7 +19,10 @@ import edu.regis.stemulator.model.Message;
 import edu.regis.stemulator.model.StudentEvalResult;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
 import edu.regis.stemulator.request.ChatCompletionsRequest;
+import edu.regis.stemulator.request.StudentEvalBatchRequest;
+import edu.regis.stemulator.response.StudentEvalBatchItem;
 import edu.regis.stemulator.service.StudentEvalService;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/stemulator/v1/student_eval")
@@ -40,4 +44,14 @@ public class StudentEvalController {
     ) throws Exception { 	
     	return studentEvalService.getStudentEval(chatCompletionsRequest.getMessages());
     }
+    
+    // Streams one NDJSON line per transcript as soon as it is evaluated, then a summary line
+    @PostMapping(path = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<StudentEvalBatchItem>> getStudentEvalBatch(@RequestBody StudentEvalBatchRequest studentEvalBatchRequest) {
+    	try {
+    		return ResponseEntity.ok(studentEvalService.evaluateBatch(studentEvalBatchRequest.getItems()));
+    	} catch (IllegalArgumentException e) {
+    		return ResponseEntity.badRequest().build();
+    	}
+    }
 }
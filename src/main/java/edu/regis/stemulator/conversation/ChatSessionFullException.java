@@ -0,0 +1,14 @@
+package edu.regis.stemulator.conversation;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ChatSessionFullException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ChatSessionFullException(String message) {
+		super(message);
+	}
+}
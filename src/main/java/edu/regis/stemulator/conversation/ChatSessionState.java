@@ -0,0 +1,89 @@
+package edu.regis.stemulator.conversation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import edu.regis.stemulator.model.ChatSession;
+import edu.regis.stemulator.model.Message;
+
+/**
+ * A live chat session: the transcript alongside its Spring AI messages, converted once
+ * as each message is appended. Turns on one session are serialized with its lock.
+ */
+public class ChatSessionState {
+
+    private final String sessionId;
+    private final Instant createdAt;
+    private final List<Message> messages = new ArrayList<>();
+    private final List<org.springframework.ai.chat.messages.Message> springMessages = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // The stored document's revision this copy matches
+    private long revision;
+
+    public ChatSessionState(String sessionId, Instant createdAt, List<Message> messages, long revision) {
+        this.sessionId = sessionId;
+        this.createdAt = createdAt;
+        this.revision = revision;
+        if (messages != null) {
+            messages.forEach(this::append);
+        }
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    // Live views; callers hold the lock while reading or appending
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    public List<org.springframework.ai.chat.messages.Message> getSpringMessages() {
+        return springMessages;
+    }
+
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    void incrementRevision() {
+        revision++;
+    }
+
+    public void append(Message message) {
+        messages.add(message);
+        springMessages.add(toSpringMessage(message));
+    }
+
+    public ChatSession toDocument() {
+        ChatSession session = new ChatSession();
+        session.setSessionId(sessionId);
+        session.setMessages(List.copyOf(messages));
+        session.setCreatedAt(createdAt);
+        session.setRevision(revision);
+        return session;
+    }
+
+    public static org.springframework.ai.chat.messages.Message toSpringMessage(Message message) {
+        String role = message.getRole() != null ? message.getRole().toLowerCase() : "user";
+        return switch (role) {
+            case "system" -> new SystemMessage(message.getContent());
+            case "assistant" -> new AssistantMessage(message.getContent());
+            default -> new UserMessage(message.getContent());
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package edu.regis.stemulator.conversation;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import edu.regis.stemulator.cache.BoundedLruCache;
+import edu.regis.stemulator.config.ChatSessionProperties;
+import edu.regis.stemulator.model.ChatSession;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.repository.mongo.ChatSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chat sessions held in memory with a sliding time-to-live, and when persistent also
+ * in the chatSessions collection. New messages are pushed onto the stored document
+ * rather than rewriting the transcript; a session missing from memory (after a
+ * restart or on another node) is reloaded from Mongo and converted once.
+ * <p>
+ * Nodes need not be sticky: each lookup reads only the stored revision, and a copy
+ * that another node has since appended to or deleted is reloaded or dropped. Turns are
+ * serialized per node, so a turn posted elsewhere while one is in flight here is only
+ * seen from the next turn on.
+ */
+@Slf4j
+@Component
+public class ChatSessionStore {
+
+    private final ChatSessionProperties properties;
+    private final ChatSessionRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+    private final BoundedLruCache<String, ChatSessionState> sessions;
+
+    @Autowired
+    public ChatSessionStore(ChatSessionProperties properties, ChatSessionRepository repository, MongoTemplate mongoTemplate) {
+        this(properties, repository, mongoTemplate, Clock.systemUTC());
+    }
+
+    ChatSessionStore(ChatSessionProperties properties, ChatSessionRepository repository, MongoTemplate mongoTemplate, Clock clock) {
+        this.properties = properties;
+        this.repository = properties.isPersistent() ? repository : null;
+        this.mongoTemplate = properties.isPersistent() ? mongoTemplate : null;
+        this.clock = clock;
+        this.sessions = new BoundedLruCache<>(properties.getMaxSessions(), 0, properties.getTimeToLive(), session -> 1, clock);
+    }
+
+    public ChatSessionState create(List<Message> messages) {
+        Instant now = clock.instant();
+        ChatSessionState state = new ChatSessionState(UUID.randomUUID().toString(), now, messages, 0);
+        sessions.put(state.getSessionId(), state);
+        if (repository != null) {
+            ChatSession session = state.toDocument();
+            session.setUpdatedAt(now);
+            session.setExpireAt(now.plus(properties.getTimeToLive()));
+            try {
+                repository.insert(session);
+            } catch (RuntimeException e) {
+                log.warn("Could not persist chat session {}: {}", state.getSessionId(), e.getMessage());
+            }
+        }
+        return state;
+    }
+
+    public Optional<ChatSessionState> find(String sessionId) {
+        ChatSessionState state = sessions.get(sessionId);
+        if (state != null && (mongoTemplate == null || isCurrent(state))) {
+            return Optional.of(state);
+        }
+        if (repository == null) {
+            return Optional.empty();
+        }
+        try {
+            // The TTL monitor runs about once a minute, so expiry is also checked here
+            Optional<ChatSessionState> loaded = repository.findById(sessionId)
+                    .filter(session -> session.getExpireAt() == null || session.getExpireAt().isAfter(clock.instant()))
+                    .map(session -> new ChatSessionState(session.getSessionId(), session.getCreatedAt(), session.getMessages(), session.getRevision()));
+            loaded.ifPresentOrElse(session -> sessions.put(sessionId, session), () -> sessions.remove(sessionId));
+            return loaded;
+        } catch (RuntimeException e) {
+            log.warn("Could not read chat session {}: {}", sessionId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Records messages the caller has already appended to the state, under its lock
+    public void appended(ChatSessionState state, List<Message> added) {
+        state.incrementRevision();
+        sessions.put(state.getSessionId(), state);
+        if (mongoTemplate == null) {
+            return;
+        }
+        Instant now = clock.instant();
+        try {
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(state.getSessionId())),
+                    new Update()
+                            .push("messages").each(added.toArray())
+                            .inc("revision", 1)
+                            .set("updatedAt", now)
+                            .set("expireAt", now.plus(properties.getTimeToLive())),
+                    ChatSession.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not persist messages for chat session {}: {}", state.getSessionId(), e.getMessage());
+        }
+    }
+
+    public boolean delete(String sessionId) {
+        boolean existed = sessions.remove(sessionId) != null;
+        if (repository != null) {
+            try {
+                existed |= repository.existsById(sessionId);
+                repository.deleteById(sessionId);
+            } catch (RuntimeException e) {
+                log.warn("Could not delete chat session {}: {}", sessionId, e.getMessage());
+            }
+        }
+        return existed;
+    }
+
+    public int getMaxMessages() {
+        return properties.getMaxMessages();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureTtlIndex() {
+        if (mongoTemplate == null) {
+            return;
+        }
+        Thread.ofVirtual().name("chat-session-index").start(() -> {
+            try {
+                mongoTemplate.indexOps(ChatSession.class)
+                        .createIndex(new Index().on("expireAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            } catch (RuntimeException e) {
+                log.warn("Could not create TTL index on chatSessions: {}", e.getMessage());
+            }
+        });
+    }
+
+    // Compared under the state's lock, so a turn in flight here has both bumped and stored it
+    private boolean isCurrent(ChatSessionState state) {
+        state.getLock().lock();
+        try {
+            Query query = Query.query(Criteria.where("_id").is(state.getSessionId()));
+            query.fields().include("revision");
+            ChatSession stored = mongoTemplate.findOne(query, ChatSession.class);
+            return stored != null && stored.getRevision() == state.getRevision();
+        } catch (RuntimeException e) {
+            // Serve the copy in memory while Mongo is unreachable
+            log.warn("Could not check chat session {}: {}", state.getSessionId(), e.getMessage());
+            return true;
+        } finally {
+            state.getLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package edu.regis.stemulator.conversation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.regis.stemulator.cache.BoundedLruCache;
+import edu.regis.stemulator.config.ConversationProperties;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.prompt.PromptTemplates;
+import edu.regis.stemulator.util.Digests;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shrinks a conversation before it is sent to the model. Leading system messages and
+ * the most recent turns are kept verbatim; older turns are replaced by a rolling
+ * summary that is cached per conversation id, so each older turn is summarized once
+ * rather than re-sent on every request. Conversations without an id are summarized
+ * but not cached. The result is then trimmed to a token budget estimated locally with
+ * the cl100k tokenizer; if summarizing fails, the whole history is trimmed instead.
+ */
+@Slf4j
+@Component
+public class HistoryCompactor {
+
+    static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+
+    // Role and separator tokens added per message by the chat format
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final ChatClient chatClient;
+    private final LlmGateway llmGateway;
+    private final PromptTemplates promptTemplates;
+    private final ConversationProperties.Compaction properties;
+    private final TokenCountEstimator tokenEstimator = new JTokkitTokenCountEstimator();
+    private final BoundedLruCache<String, Summary> summaries;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public HistoryCompactor(
+            ChatClient.Builder chatClientBuilder,
+            LlmGateway llmGateway,
+            PromptTemplates promptTemplates,
+            ConversationProperties properties,
+            MeterRegistry meterRegistry) {
+        this.chatClient = chatClientBuilder.build();
+        this.llmGateway = llmGateway;
+        this.promptTemplates = promptTemplates;
+        this.properties = properties.getCompaction();
+        this.meterRegistry = meterRegistry;
+        this.summaries = new BoundedLruCache<>(
+                this.properties.getCacheMaxEntries(), 0, this.properties.getCacheTimeToLive(), summary -> 1);
+    }
+
+    /**
+     * Compacts one student's conversation, e.g. a chat session, caching its summary under
+     * {@code conversationId}; with a null id the summary is not cached.
+     */
+    public List<Message> compact(LlmEndpoint endpoint, String conversationId, List<Message> messages) {
+        if (!properties.isEnabled() || messages == null || messages.isEmpty()) {
+            return messages;
+        }
+        int originalTokens = estimateTokens(messages);
+        if (originalTokens <= properties.getMinTokens()) {
+            record(endpoint, "verbatim", originalTokens, originalTokens);
+            return messages;
+        }
+
+        int leading = 0;
+        while (leading < messages.size() && isSystem(messages.get(leading))) {
+            leading++;
+        }
+        List<Message> system = messages.subList(0, leading);
+        List<Message> turns = messages.subList(leading, messages.size());
+        int recentStart = Math.max(0, turns.size() - properties.getRecentMessages());
+        List<Message> older = turns.subList(0, recentStart);
+        List<Message> recent = turns.subList(recentStart, turns.size());
+
+        String result = "verbatim";
+        List<Message> compacted = new ArrayList<>(system);
+        if (!older.isEmpty()) {
+            try {
+                Summarized summarized = summarize(conversationId, older);
+                compacted.add(message("system", SUMMARY_PREFIX + summarized.summary().text()));
+                result = summarized.cached() ? "cached" : "summarized";
+            } catch (RuntimeException e) {
+                // Without a summary the older turns compete for the budget like the recent ones
+                log.warn("Could not summarize conversation {}: {}", conversationId, e.getMessage());
+                recent = turns;
+                result = "failed";
+            }
+        }
+
+        // Oldest turns give way first; the latest message is always kept
+        int budget = properties.getMaxInputTokens() - estimateTokens(compacted);
+        int tokens = estimateTokens(recent);
+        int keepFrom = 0;
+        while (keepFrom < recent.size() - 1 && tokens > budget) {
+            tokens -= estimateTokens(recent.subList(keepFrom, keepFrom + 1));
+            keepFrom++;
+        }
+        compacted.addAll(recent.subList(keepFrom, recent.size()));
+
+        record(endpoint, result, originalTokens, estimateTokens(compacted));
+        return compacted;
+    }
+
+    public int estimateTokens(List<Message> messages) {
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += MESSAGE_OVERHEAD_TOKENS + tokenEstimator.estimate(content(message));
+        }
+        return tokens;
+    }
+
+    private Summarized summarize(String conversationId, List<Message> older) {
+        Summary cached = conversationId != null ? summaries.get(conversationId) : null;
+        if (cached != null && cached.coveredMessages() <= older.size()
+                && cached.coveredHash().equals(hash(older.subList(0, cached.coveredMessages())))) {
+            if (cached.coveredMessages() == older.size()) {
+                return new Summarized(cached, true);
+            }
+            // Only the turns that aged out since the last summary are added to it
+            return new Summarized(extend(conversationId, cached.text(), older, cached.coveredMessages()), false);
+        }
+        return new Summarized(extend(conversationId, "", older, 0), false);
+    }
+
+    private Summary extend(String conversationId, String previousSummary, List<Message> older, int from) {
+        StringBuilder transcript = new StringBuilder();
+        for (Message message : older.subList(from, older.size())) {
+            transcript.append(message.getRole()).append(": ").append(content(message)).append('\n');
+        }
+        Map<String, Object> values = new HashMap<>();
+        values.put("maxWords", properties.getSummaryMaxWords());
+        values.put("previousSummary", previousSummary.isEmpty() ? "(none)" : previousSummary);
+        values.put("transcript", transcript);
+        String prompt = promptTemplates.get(PromptTemplates.CONVERSATION_SUMMARY).render(values);
+
+        String coveredHash = hash(older);
+        ModelRoute route = llmGateway.route(LlmEndpoint.CONVERSATION_SUMMARY, prompt);
+        String text = llmGateway.call(route, Digests.sha256Hex(prompt), () -> route.apply(chatClient
+                .prompt()
+                .user(prompt))
+                .call()
+                .content());
+        if (text == null || text.isBlank()) {
+            throw new IllegalStateException("empty summary");
+        }
+        Summary summary = new Summary(text.strip(), older.size(), coveredHash);
+        if (conversationId != null) {
+            summaries.put(conversationId, summary);
+        }
+        return summary;
+    }
+
+    private void record(LlmEndpoint endpoint, String result, int originalTokens, int compactedTokens) {
+        meterRegistry.counter("stemulator.conversation.compaction",
+                "endpoint", endpoint.name().toLowerCase(), "result", result).increment();
+        meterRegistry.summary("stemulator.conversation.tokens.saved",
+                "endpoint", endpoint.name().toLowerCase()).record(Math.max(0, originalTokens - compactedTokens));
+    }
+
+    /**
+     * Identifies a conversation sent in full on every request by the student it belongs to
+     * and how it opened. Returns null without a student, as students share openings.
+     */
+    public static String conversationId(String studentId, List<Message> messages) {
+        if (studentId == null || studentId.isBlank() || messages == null) {
+            return null;
+        }
+        int opening = 0;
+        while (opening < messages.size() && !"user".equalsIgnoreCase(messages.get(opening).getRole())) {
+            opening++;
+        }
+        return studentId.strip() + ':' + hash(messages.subList(0, Math.min(opening + 1, messages.size())));
+    }
+
+    private static String hash(List<Message> messages) {
+        StringBuilder canonical = new StringBuilder();
+        for (Message message : messages) {
+            canonical.append(message.getRole()).append('\u001f').append(content(message)).append('\u001e');
+        }
+        return Digests.sha256Hex(canonical.toString());
+    }
+
+    private static boolean isSystem(Message message) {
+        return "system".equalsIgnoreCase(message.getRole());
+    }
+
+    private static String content(Message message) {
+        return message.getContent() != null ? message.getContent() : "";
+    }
+
+    private static Message message(String role, String content) {
+        Message message = new Message();
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+
+    private record Summary(String text, int coveredMessages, String coveredHash) { }
+
+    private record Summarized(Summary summary, boolean cached) { }
+}
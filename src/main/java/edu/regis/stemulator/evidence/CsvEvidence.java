@@ -0,0 +1,105 @@
+package edu.regis.stemulator.evidence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import lombok.Data;
+
+/**
+ * Compact summary of a CSV evidence file: enough for the model to reason about the
+ * data without pasting every row of a simulation export into the prompt.
+ */
+@Data
+public class CsvEvidence {
+	private String filename;
+	private List<String> header = new ArrayList<>();
+	private long rowCount;
+	private long bytesRead;
+	private boolean truncated;
+	private List<ColumnStats> columns = new ArrayList<>();
+	// Original lines (header first) in file order
+	private List<String> sampledLines = new ArrayList<>();
+	// SHA-256 of the file with line endings and blank lines normalized
+	private String digest;
+
+	public boolean isSampled() {
+		return sampledLines.size() - 1 < rowCount;
+	}
+
+	/** Header and sampled rows as a CSV block. */
+	public String toCsv() {
+		StringBuilder csv = new StringBuilder();
+		for (String line : sampledLines) {
+			csv.append(line).append('\n');
+		}
+		return csv.toString();
+	}
+
+	/** Row count, truncation and per-column statistics as prompt text. */
+	public String describe() {
+		StringBuilder text = new StringBuilder();
+		text.append("rows: ").append(rowCount);
+		if (isSampled()) {
+			text.append(" (").append(sampledLines.size() - 1).append(" sampled rows shown above)");
+		}
+		if (truncated) {
+			text.append(" - file truncated after ").append(bytesRead).append(" bytes");
+		}
+		text.append('\n');
+		for (ColumnStats column : columns) {
+			text.append(column.describe()).append('\n');
+		}
+		return text.toString();
+	}
+
+	@Data
+	public static class ColumnStats {
+		private String name;
+		private long numericCount;
+		private long textCount;
+		private double min = Double.POSITIVE_INFINITY;
+		private double max = Double.NEGATIVE_INFINITY;
+		private double sum;
+
+		public ColumnStats() { }
+
+		public ColumnStats(String name) {
+			this.name = name;
+		}
+
+		void accept(String value) {
+			if (value.isEmpty()) {
+				return;
+			}
+			try {
+				double number = Double.parseDouble(value);
+				numericCount++;
+				min = Math.min(min, number);
+				max = Math.max(max, number);
+				sum += number;
+			} catch (NumberFormatException e) {
+				textCount++;
+			}
+		}
+
+		public Double getMean() {
+			return numericCount == 0 ? null : sum / numericCount;
+		}
+
+		String describe() {
+			if (numericCount == 0) {
+				return name + ": text (" + textCount + " values)";
+			}
+			String stats = name + ": min=" + format(min) + ", max=" + format(max) + ", mean=" + format(getMean());
+			return textCount == 0 ? stats : stats + " (" + textCount + " non-numeric values)";
+		}
+
+		private static String format(double value) {
+			if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+				return String.valueOf((long) value);
+			}
+			return String.format(Locale.ROOT, "%.4g", value);
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package edu.regis.stemulator.evidence;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import edu.regis.stemulator.config.EvidenceProperties;
+import edu.regis.stemulator.evidence.CsvEvidence.ColumnStats;
+import edu.regis.stemulator.util.Digests;
+
+/**
+ * Reads CSV evidence from the upload stream one line at a time, so memory use depends
+ * on the sample size rather than on the size of the file, and stops at the configured
+ * byte and row limits.
+ */
+@Component
+public class CsvEvidenceParser {
+
+    // Fixed seed so the same file always yields the same sample (and the same prompt)
+    private static final long SAMPLE_SEED = 0x5EED;
+
+    private final EvidenceProperties properties;
+
+    public CsvEvidenceParser() {
+        this(new EvidenceProperties());
+    }
+
+    @Autowired
+    public CsvEvidenceParser(EvidenceProperties properties) {
+        this.properties = properties;
+    }
+
+    public CsvEvidence parse(MultipartFile evidence) {
+        if (evidence == null || evidence.isEmpty()) {
+            return null;
+        }
+        try (InputStream in = evidence.getInputStream()) {
+            CsvEvidence summary = parse(in);
+            summary.setFilename(evidence.getOriginalFilename());
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read evidence file " + evidence.getOriginalFilename(), e);
+        }
+    }
+
+    public CsvEvidence parse(InputStream input) throws IOException {
+        CsvEvidence summary = new CsvEvidence();
+        LimitedInputStream limited = new LimitedInputStream(input, properties.getMaxBytes().toBytes());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(limited, StandardCharsets.UTF_8));
+        MessageDigest digest = Digests.sha256();
+
+        List<SampledLine> head = new ArrayList<>();
+        SampledLine[] reservoir = new SampledLine[Math.max(0, properties.getSampleRows())];
+        Random random = new Random(SAMPLE_SEED);
+        long rows = 0;
+
+        String line;
+        while ((line = readRecord(reader, summary)) != null) {
+            if (summary.getHeader().isEmpty()) {
+                line = line.replace("\uFEFF", "");
+            }
+            line = line.stripTrailing();
+            if (line.isBlank()) {
+                continue;
+            }
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+
+            List<String> fields = split(line);
+            if (summary.getHeader().isEmpty()) {
+                summary.setHeader(fields);
+                summary.getSampledLines().add(line);
+                for (int i = 0; i < Math.min(fields.size(), properties.getMaxColumns()); i++) {
+                    summary.getColumns().add(new ColumnStats(fields.get(i)));
+                }
+                continue;
+            }
+            if (rows >= properties.getMaxRows()) {
+                summary.setTruncated(true);
+                break;
+            }
+            for (int i = 0; i < Math.min(fields.size(), summary.getColumns().size()); i++) {
+                summary.getColumns().get(i).accept(fields.get(i));
+            }
+
+            if (head.size() < properties.getHeadRows()) {
+                head.add(new SampledLine(rows, line));
+            } else if (reservoir.length > 0) {
+                // Reservoir sampling keeps an unbiased sample of the remaining rows in fixed memory
+                long seen = rows - head.size();
+                if (seen < reservoir.length) {
+                    reservoir[(int) seen] = new SampledLine(rows, line);
+                } else {
+                    long slot = (long) (random.nextDouble() * (seen + 1));
+                    if (slot < reservoir.length) {
+                        reservoir[(int) slot] = new SampledLine(rows, line);
+                    }
+                }
+            }
+            rows++;
+        }
+
+        List<SampledLine> sampled = new ArrayList<>(head);
+        for (SampledLine sampledLine : reservoir) {
+            if (sampledLine != null) {
+                sampled.add(sampledLine);
+            }
+        }
+        sampled.sort(Comparator.comparingLong(SampledLine::row));
+        sampled.forEach(sampledLine -> summary.getSampledLines().add(sampledLine.text()));
+
+        summary.setRowCount(rows);
+        summary.setBytesRead(limited.count);
+        summary.setTruncated(summary.isTruncated() || limited.limitReached);
+        summary.setDigest(HexFormat.of().formatHex(digest.digest()));
+        return summary;
+    }
+
+    /**
+     * A quoted field may span lines, so a record is read until its quotes are balanced.
+     * Parity is tracked per appended line. A record longer than maxRecordChars, such as
+     * one opened by a stray quote, ends the read and marks the summary as truncated.
+     */
+    private String readRecord(BufferedReader reader, CsvEvidence summary) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        int maxChars = properties.getMaxRecordChars();
+        boolean open = countQuotes(line) % 2 != 0;
+        if (!open) {
+            return tooLong(line.length(), maxChars, summary) ? null : line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (open) {
+            String next = reader.readLine();
+            if (next == null) {
+                break;
+            }
+            if (tooLong(record.length() + 1L + next.length(), maxChars, summary)) {
+                return null;
+            }
+            record.append('\n').append(next);
+            open ^= countQuotes(next) % 2 != 0;
+        }
+        return record.toString();
+    }
+
+    private static boolean tooLong(long length, int maxChars, CsvEvidence summary) {
+        if (length <= maxChars) {
+            return false;
+        }
+        summary.setTruncated(true);
+        return true;
+    }
+
+    private static int countQuotes(CharSequence text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes;
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private record SampledLine(long row, String text) { }
+
+    /** Reports end of stream once the byte limit is reached, remembering that it did. */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+        private boolean limitReached;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count >= limit) {
+                limitReached |= in.read() >= 0;
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (count >= limit) {
+                limitReached |= in.read() >= 0;
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, limit - count));
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
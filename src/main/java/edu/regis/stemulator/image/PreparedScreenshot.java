@@ -0,0 +1,5 @@
+package edu.regis.stemulator.image;
+
+// Screenshot bytes ready to attach to a prompt, with the name and type they should be sent under
+public record PreparedScreenshot(byte[] bytes, String filename, String contentType) {
+}
@@ -0,0 +1,211 @@
+package edu.regis.stemulator.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import edu.regis.stemulator.cache.BoundedLruCache;
+import edu.regis.stemulator.config.ScreenshotProperties;
+import edu.regis.stemulator.util.Digests;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shrinks lab-generation screenshots before they are attached to a prompt. The upload
+ * is read as a stream, decoded with subsampling so a retina-sized image never has to
+ * sit on the heap at full resolution, scaled to the configured longest side and
+ * re-encoded without its metadata. Results are cached by a hash of the upload.
+ * Anything ImageIO cannot read is passed through unchanged.
+ */
+@Slf4j
+@Component
+public class ScreenshotPreprocessor {
+
+    public static final String PREPROCESS_METRIC = "stemulator.screenshot.preprocess";
+    public static final String BYTES_SAVED_METRIC = "stemulator.screenshot.bytes.saved";
+
+    private final ScreenshotProperties properties;
+    private final BoundedLruCache<String, PreparedScreenshot> prepared;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ScreenshotPreprocessor(ScreenshotProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.prepared = new BoundedLruCache<>(properties.getCacheMaxEntries(), properties.getCacheMaxSize().toBytes(),
+                properties.getCacheTimeToLive(), screenshot -> screenshot.bytes().length);
+    }
+
+    public PreparedScreenshot prepare(MultipartFile screenshot) {
+        try {
+            if (!properties.isEnabled()) {
+                return original(screenshot);
+            }
+            // A first pass over the stream identifies the upload without holding it in memory
+            MessageDigest digest = Digests.sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(screenshot.getInputStream(), digest)) {
+                size = in.transferTo(OutputStream.nullOutputStream());
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            PreparedScreenshot cached = prepared.get(hash);
+            if (cached != null) {
+                record("cached", 0);
+                return cached;
+            }
+
+            Decoded decoded;
+            try (InputStream in = screenshot.getInputStream()) {
+                decoded = decode(in);
+            }
+            if (decoded == null) {
+                record("unreadable", 0);
+                return original(screenshot);
+            }
+            BufferedImage image = decoded.image();
+            boolean scaled = decoded.longestSide() > properties.getMaxDimension();
+            if (Math.max(image.getWidth(), image.getHeight()) > properties.getMaxDimension()) {
+                image = scale(image, properties.getMaxDimension());
+            }
+            String format = properties.getFormat().toLowerCase(Locale.ROOT);
+            byte[] encoded = encode(image, format);
+            PreparedScreenshot result;
+            if (!scaled && encoded.length >= size) {
+                // Already small; re-encoding would only cost quality
+                record("original", 0);
+                result = original(screenshot);
+            } else {
+                record(scaled ? "resized" : "reencoded", size - encoded.length);
+                result = new PreparedScreenshot(encoded, filename(screenshot.getOriginalFilename(), format), "image/" + format);
+                log.debug("Screenshot {} prepared: {} -> {} bytes", screenshot.getOriginalFilename(), size, encoded.length);
+            }
+            prepared.put(hash, result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read screenshot " + screenshot.getOriginalFilename(), e);
+        }
+    }
+
+    // Subsamples while decoding so the decoded image is at most about twice the target size
+    private Decoded decode(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // Metadata is never read, which is also what strips it from the output
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / properties.getMaxDimension());
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return new Decoded(reader.read(0, param), longest);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not decode screenshot: {}", e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int maxDimension) {
+        double ratio = (double) maxDimension / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        if ("jpeg".equals(format) && image.getColorModel().hasAlpha()) {
+            image = flatten(image);
+        }
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalStateException("No image writer for format " + format);
+        }
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(properties.getQuality());
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // JPEG has no alpha channel; transparent areas become white, as they appear in the simulation
+    private static BufferedImage flatten(BufferedImage image) {
+        BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = opaque.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return opaque;
+    }
+
+    private void record(String result, long bytesSaved) {
+        meterRegistry.counter(PREPROCESS_METRIC, "result", result).increment();
+        meterRegistry.summary(BYTES_SAVED_METRIC).record(Math.max(0, bytesSaved));
+    }
+
+    private static PreparedScreenshot original(MultipartFile screenshot) throws IOException {
+        return new PreparedScreenshot(screenshot.getBytes(), screenshot.getOriginalFilename(), screenshot.getContentType());
+    }
+
+    static String filename(String original, String format) {
+        String extension = "jpeg".equals(format) ? "jpg" : format;
+        if (!StringUtils.hasText(original)) {
+            return "screenshot." + extension;
+        }
+        String base = StringUtils.stripFilenameExtension(original);
+        return base + "." + extension;
+    }
+
+    private record Decoded(BufferedImage image, int longestSide) { }
+}
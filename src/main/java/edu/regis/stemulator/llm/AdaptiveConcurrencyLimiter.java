@@ -0,0 +1,237 @@
+package edu.regis.stemulator.llm;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.regis.stemulator.config.LlmProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Concurrency limit for one downstream model that follows how the model is coping:
+ * the limit grows by one after a successful call made while the limit was in use,
+ * and shrinks by the backoff ratio when the model throttles, fails over or answers
+ * slower than the latency threshold (additive increase, multiplicative decrease).
+ * Callers over the limit wait in a queue ordered by {@link LlmPriority}, so students
+ * waiting on a response are admitted ahead of lab generation and batch work.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String LIMIT_METRIC = "stemulator.llm.limiter.limit";
+    public static final String IN_FLIGHT_METRIC = "stemulator.llm.limiter.in.flight";
+    public static final String QUEUED_METRIC = "stemulator.llm.limiter.queued";
+    public static final String WAIT_METRIC = "stemulator.llm.limiter.wait";
+    public static final String REJECTED_METRIC = "stemulator.llm.limiter.rejected";
+
+    private static final Comparator<Waiter> ADMISSION_ORDER =
+            Comparator.comparing((Waiter waiter) -> waiter.priority).thenComparingLong(waiter -> waiter.sequence);
+
+    private final String model;
+    private final LlmProperties.Limiter settings;
+    private final int minLimit;
+    private final int maxLimit;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(ADMISSION_ORDER);
+    // Written under the lock, read without it by the gauges
+    private volatile double limit;
+    private volatile int inFlight;
+    private long sequence;
+
+    public AdaptiveConcurrencyLimiter(String model, int maxLimit, LlmProperties.Limiter settings, MeterRegistry meterRegistry) {
+        this.model = model;
+        this.settings = settings;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.minLimit = Math.max(1, Math.min(settings.getMinLimit(), this.maxLimit));
+        this.limit = settings.isAdaptive()
+                ? Math.max(minLimit, Math.min(settings.getInitialLimit(), this.maxLimit))
+                : this.maxLimit;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(LIMIT_METRIC, this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit for the model")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls to the model currently holding a slot")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .register(meterRegistry);
+        Gauge.builder(QUEUED_METRIC, this, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Calls waiting for a slot")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a slot, waiting up to {@code maxWait} behind callers of equal or higher
+     * priority. Fails with a 503 at once when the queue is full, or once the wait is up.
+     */
+    public Permit acquire(LlmPriority priority, Duration maxWait) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                return admitted(priority, start);
+            }
+            if (queue.size() >= settings.getMaxQueueSize()) {
+                throw reject(priority, "queue_full");
+            }
+            Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+            queue.add(waiter);
+            try {
+                long remaining = maxWait.toNanos();
+                while (!waiter.admitted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (waiter.admitted && !Thread.currentThread().isInterrupted()) {
+                return admitted(priority, start);
+            }
+            if (waiter.admitted) {
+                // Interrupted after being handed a slot: give it to the next caller
+                inFlight--;
+                admitWaiters();
+            } else {
+                queue.remove(waiter);
+            }
+            throw reject(priority, "timeout");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Takes a slot only if one is free and nobody is queued for it, otherwise returns null. */
+    public Permit tryAcquire() {
+        lock.lock();
+        try {
+            if (queue.isEmpty() && inFlight < currentLimit()) {
+                inFlight++;
+                return new Permit();
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private Permit admitted(LlmPriority priority, long start) {
+        Timer.builder(WAIT_METRIC)
+                .description("Time spent waiting for a slot")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .tag("priority", priority.name())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit();
+    }
+
+    private LlmUnavailableException reject(LlmPriority priority, String reason) {
+        Counter.builder(REJECTED_METRIC)
+                .description("Calls turned away because the model was at its limit")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .tag("priority", priority.name())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("No capacity for {} call to model {} ({}, limit {}, queued {})", priority, model, reason, currentLimit(), queue.size());
+        return new LlmUnavailableException("Model " + model + " is at capacity, please retry", settings.getRetryAfter());
+    }
+
+    // Called with the lock held whenever a slot frees up or the limit grows
+    private void admitWaiters() {
+        while (!queue.isEmpty() && inFlight < currentLimit()) {
+            Waiter waiter = queue.poll();
+            waiter.admitted = true;
+            inFlight++;
+            waiter.condition.signal();
+        }
+    }
+
+    private void release(Sample sample, long latencyNanos) {
+        lock.lock();
+        try {
+            if (settings.isAdaptive()) {
+                boolean overloaded = sample == Sample.OVERLOAD
+                        || (sample == Sample.SUCCESS && latencyNanos > settings.getLatencyThreshold().toNanos());
+                if (overloaded) {
+                    limit = Math.max(minLimit, limit * settings.getBackoffRatio());
+                } else if (sample == Sample.SUCCESS && inFlight * 2 >= currentLimit()) {
+                    // Only grow when the current limit was actually being used
+                    limit = Math.min(maxLimit, limit + 1);
+                }
+            }
+            inFlight--;
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Sample { SUCCESS, OVERLOAD, IGNORED }
+
+    /** A slot held for one call. The first of the release methods called frees it. */
+    public final class Permit {
+
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void onSuccess() {
+            release(Sample.SUCCESS);
+        }
+
+        public void onOverload() {
+            release(Sample.OVERLOAD);
+        }
+
+        // Frees the slot without letting the call affect the limit
+        public void release() {
+            release(Sample.IGNORED);
+        }
+
+        private void release(Sample sample) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            AdaptiveConcurrencyLimiter.this.release(sample, System.nanoTime() - start);
+        }
+    }
+
+    private static final class Waiter {
+        private final LlmPriority priority;
+        private final long sequence;
+        private final Condition condition;
+        private boolean admitted;
+
+        private Waiter(LlmPriority priority, long sequence, Condition condition) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package edu.regis.stemulator.llm;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+import edu.regis.stemulator.config.LlmProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker for one downstream model. It opens when too many of the
+ * recent calls failed upstream, so requests fail at once with a 503 instead of each
+ * waiting out its deadline. After the open period a few trial calls are let through,
+ * and their outcome closes the circuit or opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public static final String STATE_METRIC = "stemulator.llm.circuit.state";
+    public static final String REJECTED_METRIC = "stemulator.llm.circuit.rejected";
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final String model;
+    private final LlmProperties.Circuit settings;
+    private final LongSupplier nanoTime;
+    private final Counter rejected;
+
+    // Ring of the latest outcomes, true for an upstream failure
+    private final boolean[] window;
+    private int next;
+    private int calls;
+    private int failures;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int trialsInFlight;
+    private int trialSuccesses;
+
+    public CircuitBreaker(String model, LlmProperties.Circuit settings, MeterRegistry meterRegistry) {
+        this(model, settings, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String model, LlmProperties.Circuit settings, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.model = model;
+        this.settings = settings;
+        this.nanoTime = nanoTime;
+        this.window = new boolean[Math.max(1, settings.getWindowSize())];
+        Gauge.builder(STATE_METRIC, this, breaker -> breaker.state.ordinal())
+                .description("Circuit state per model: 0 closed, 1 half open, 2 open")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("Calls failed fast while the circuit was open")
+                .tag(LlmGateway.MODEL_TAG, model)
+                .register(meterRegistry);
+    }
+
+    /** Lets a call through, or fails it with a 503 while the circuit is open. */
+    public synchronized void acquirePermission() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (state == State.OPEN) {
+            long remaining = settings.getOpenDuration().toNanos() - (nanoTime.getAsLong() - openedAt);
+            if (remaining > 0) {
+                throw reject(Duration.ofNanos(remaining));
+            }
+            state = State.HALF_OPEN;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+            log.info("Circuit for model {} is half open", model);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight >= settings.getHalfOpenCalls()) {
+                throw reject(settings.getOpenDuration());
+            }
+            trialsInFlight++;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+            if (++trialSuccesses >= settings.getHalfOpenCalls()) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && calls >= settings.getMinimumCalls()
+                && failures >= settings.getFailureRateThreshold() * calls) {
+            open();
+        }
+    }
+
+    // A call that failed for its own reasons (bad request, unparseable answer) says nothing about the model
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+        log.warn("Circuit for model {} opened after {} upstream failures in {} calls", model, failures, calls);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        calls = 0;
+        failures = 0;
+        next = 0;
+        log.info("Circuit for model {} closed", model);
+    }
+
+    private LlmUnavailableException reject(Duration retryAfter) {
+        rejected.increment();
+        return new LlmUnavailableException("Model " + model + " is failing, please retry", retryAfter);
+    }
+}
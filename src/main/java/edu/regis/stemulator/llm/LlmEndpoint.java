@@ -0,0 +1,22 @@
+package edu.regis.stemulator.llm;
+
+// The use case behind a ChatClient call
+public enum LlmEndpoint {
+	CREATE_LAB(LlmPriority.BACKGROUND),
+	GUIDANCE(LlmPriority.INTERACTIVE),
+	STUDENT_EVAL(LlmPriority.STANDARD),
+	STUDENT_EVAL_BATCH(LlmPriority.BACKGROUND),
+	CHAT(LlmPriority.INTERACTIVE),
+	// Summaries are made while a chat request waits on them
+	CONVERSATION_SUMMARY(LlmPriority.INTERACTIVE);
+	
+	private final LlmPriority priority;
+	
+	LlmEndpoint(LlmPriority priority) {
+		this.priority = priority;
+	}
+	
+	public LlmPriority getPriority() {
+		return priority;
+	}
+}
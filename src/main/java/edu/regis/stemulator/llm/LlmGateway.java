@@ -0,0 +1,377 @@
+package edu.regis.stemulator.llm;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import edu.regis.stemulator.config.LlmProperties;
+import edu.regis.stemulator.model.Message;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+
+/**
+ * Single entry point for ChatClient calls. Requests run on virtual threads
+ * (spring.threads.virtual.enabled), so a call waiting on the model is cheap to park;
+ * what must be bounded is how many calls each downstream model sees at once. That
+ * bound adapts to throttling and slow responses, see {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * Each call also has a deadline per endpoint, is retried with backoff after upstream
+ * failures while the deadline allows, fails fast while the model's {@link CircuitBreaker}
+ * is open, and on hedged endpoints is raced against a second request once it has been
+ * waiting longer than the hedge delay.
+ */
+@Slf4j
+@Component
+public class LlmGateway implements DisposableBean {
+
+    public static final String CALL_METRIC = "stemulator.llm.call";
+    public static final String PARSE_FAILURE_METRIC = "stemulator.llm.parse.failures";
+    public static final String HEDGE_METRIC = "stemulator.llm.hedge";
+    public static final String RETRY_METRIC = "stemulator.llm.retry";
+    public static final String ENDPOINT_TAG = "endpoint";
+    public static final String MODEL_TAG = "model";
+
+    private final LlmProperties properties;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    // Attempts run on their own virtual thread so the caller can stop waiting at the deadline
+    private final ExecutorService attempts = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-call-", 0).factory());
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+    private final SingleFlight singleFlight;
+    private final ModelRouter router;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public LlmGateway(
+            LlmProperties properties,
+            @Value("${spring.ai.openai.chat.options.model:default}") String defaultModel,
+            ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.singleFlight = new SingleFlight(properties.getMaxCoalescedWaiters());
+        this.router = new ModelRouter(properties.getRoutes(), defaultModel, meterRegistry);
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** The model and options for a call, chosen by endpoint and prompt size; apply it to the request and pass it back in. */
+    public ModelRoute route(LlmEndpoint endpoint, CharSequence prompt) {
+        return router.route(endpoint, prompt);
+    }
+
+    public ModelRoute route(LlmEndpoint endpoint, List<Message> messages) {
+        return router.route(endpoint, messages);
+    }
+
+    public <T> T call(ModelRoute route, Supplier<T> call) {
+        long deadline = System.nanoTime() + deadline(route.endpoint()).toNanos();
+        CircuitBreaker breaker = breaker(route.model());
+        LlmProperties.Retry retry = properties.getRetry();
+        for (int attempt = 1; ; attempt++) {
+            breaker.acquirePermission();
+            try {
+                T result = attempt(route, call, deadline);
+                breaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                boolean upstream = isUpstreamFailure(e);
+                if (upstream) {
+                    breaker.onFailure();
+                } else {
+                    breaker.onIgnored();
+                }
+                long backoff = backoffNanos(retry, attempt);
+                if (!upstream || attempt >= retry.getMaxAttempts() || System.nanoTime() + backoff >= deadline) {
+                    throw e;
+                }
+                log.info("Retrying {} call to model {} after: {}", route.endpoint(), route.model(), e.getMessage());
+                count(RETRY_METRIC, route, "attempt", String.valueOf(attempt + 1));
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Like {@link #call(ModelRoute, Supplier)}, but concurrent calls with the same
+     * prompt fingerprint share a single upstream call and all receive its result.
+     */
+    public <T> T call(ModelRoute route, String fingerprint, Supplier<T> call) {
+        if (!properties.isCoalesce() || fingerprint == null) {
+            return call(route, call);
+        }
+        return singleFlight.execute(route.endpoint() + ":" + route.model() + ":" + fingerprint, () -> call(route, call));
+    }
+
+    public <T> Flux<T> stream(ModelRoute route, Supplier<Flux<T>> stream) {
+        // The slot is held from subscription until the stream completes, fails or is cancelled
+        return Flux.defer(() -> {
+            CircuitBreaker breaker = breaker(route.model());
+            breaker.acquirePermission();
+            AdaptiveConcurrencyLimiter.Permit permit;
+            try {
+                permit = limiter(route.model()).acquire(route.endpoint().getPriority(), properties.getAcquireTimeout());
+            } catch (RuntimeException e) {
+                breaker.onIgnored();
+                throw e;
+            }
+            Observation observation = observation(route).start();
+            Duration idleTimeout = properties.getStreamIdleTimeout();
+            try {
+                // A stalled stream is failed rather than left holding its slot
+                return stream.get()
+                        .timeout(idleTimeout, Flux.error(() -> new LlmTimeoutException(
+                                "Model " + route.model() + " sent nothing for " + idleTimeout)))
+                        .doOnError(e -> {
+                            observation.error(e);
+                            sample(permit, e);
+                            record(breaker, e);
+                        })
+                        .doOnComplete(() -> {
+                            permit.onSuccess();
+                            breaker.onSuccess();
+                        })
+                        .doOnCancel(breaker::onIgnored)
+                        .doFinally(signal -> {
+                            observation.stop();
+                            permit.release();
+                        })
+                        .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+            } catch (RuntimeException e) {
+                observation.error(e);
+                observation.stop();
+                sample(permit, e);
+                record(breaker, e);
+                permit.release();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * One attempt: the call runs on its own thread while this one waits until the
+     * deadline. Endpoints with a hedge delay start a second request if the first has not
+     * answered by then and a slot is free; whichever answers first is returned and the
+     * other is cancelled.
+     */
+    private <T> T attempt(ModelRoute route, Supplier<T> call, long deadline) {
+        AdaptiveConcurrencyLimiter limiter = limiter(route.model());
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>(2);
+        List<Future<?>> running = new ArrayList<>(2);
+        CompletableFuture<T> outcome = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger();
+        permits.add(limiter.acquire(route.endpoint().getPriority(), properties.getAcquireTimeout()));
+        try {
+            running.add(submit(route, call, permits.get(0), outcome, pending, false));
+            Duration hedgeDelay = properties.getHedgeDelays().get(route.endpoint());
+            if (hedgeDelay != null) {
+                try {
+                    return outcome.get(Math.min(hedgeDelay.toNanos(), remaining(deadline)), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    AdaptiveConcurrencyLimiter.Permit hedge = remaining(deadline) > 0 ? limiter.tryAcquire() : null;
+                    count(HEDGE_METRIC, route, "result", hedge != null ? "sent" : "skipped");
+                    if (hedge != null) {
+                        permits.add(hedge);
+                        running.add(submit(route, call, hedge, outcome, pending, true));
+                    }
+                }
+            }
+            return outcome.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Calls still running at the deadline count against the limit
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::onOverload);
+            throw new LlmTimeoutException("Model " + route.model() + " did not answer the " + route.endpoint() + " call within " + deadline(route.endpoint()));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmUnavailableException("Interrupted while waiting for model " + route.model());
+        } finally {
+            // Losing and abandoned attempts free their slots without a sample; interrupting a
+            // virtual thread blocked on a socket closes the connection
+            permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+            running.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T> Future<?> submit(ModelRoute route, Supplier<T> call, AdaptiveConcurrencyLimiter.Permit permit,
+            CompletableFuture<T> outcome, AtomicInteger pending, boolean hedge) {
+        pending.incrementAndGet();
+        Runnable task = () -> {
+            try {
+                T value = observed(route, call);
+                permit.onSuccess();
+                if (outcome.complete(value) && hedge) {
+                    count(HEDGE_METRIC, route, "result", "won");
+                }
+            } catch (RuntimeException | Error e) {
+                sample(permit, e);
+                // The first failure only decides the outcome if no other attempt can still answer
+                if (pending.decrementAndGet() == 0) {
+                    outcome.completeExceptionally(e);
+                }
+            } finally {
+                permit.release();
+            }
+        };
+        // The caller's observation comes along, so this call still nests under the request's
+        return attempts.submit(snapshots.captureAll().wrap(task));
+    }
+
+    private <T> T observed(ModelRoute route, Supplier<T> call) {
+        // Spring AI's chat client and model observations nest under this one, which is how
+        // their token metrics pick up the endpoint tag
+        return observation(route).observe(() -> {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                countParseFailure(route, e);
+                throw e;
+            }
+        });
+    }
+
+    private Observation observation(ModelRoute route) {
+        return Observation.createNotStarted(CALL_METRIC, observationRegistry)
+                .contextualName("llm " + route.endpoint().name().toLowerCase())
+                .lowCardinalityKeyValue(ENDPOINT_TAG, route.endpoint().name())
+                .lowCardinalityKeyValue(MODEL_TAG, route.model());
+    }
+
+    // Structured output that does not match the target class surfaces as a Jackson exception
+    private void countParseFailure(ModelRoute route, Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonProcessingException) {
+                Counter.builder(PARSE_FAILURE_METRIC)
+                        .description("Model responses that could not be converted to the expected type")
+                        .tag(ENDPOINT_TAG, route.endpoint().name())
+                        .tag(MODEL_TAG, route.model())
+                        .register(meterRegistry)
+                        .increment();
+                return;
+            }
+        }
+    }
+
+    private void count(String metric, ModelRoute route, String tag, String value) {
+        Counter.builder(metric)
+                .tag(ENDPOINT_TAG, route.endpoint().name())
+                .tag(MODEL_TAG, route.model())
+                .tag(tag, value)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(String model) {
+        return limiters.computeIfAbsent(model, name -> new AdaptiveConcurrencyLimiter(name,
+                properties.getMaxConcurrency().getOrDefault(name, properties.getDefaultMaxConcurrency()),
+                properties.getLimiter(), meterRegistry));
+    }
+
+    private CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, name -> new CircuitBreaker(name, properties.getCircuit(), meterRegistry));
+    }
+
+    private Duration deadline(LlmEndpoint endpoint) {
+        return properties.getDeadlines().getOrDefault(endpoint, properties.getDefaultDeadline());
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    // Doubles per attempt, with jitter between half and all of the step
+    private static long backoffNanos(LlmProperties.Retry retry, int attempt) {
+        long step = retry.getBackoff().toNanos() << Math.min(attempt - 1, 10);
+        return step / 2 + ThreadLocalRandom.current().nextLong(step / 2 + 1);
+    }
+
+    private static void record(CircuitBreaker breaker, Throwable failure) {
+        if (isUpstreamFailure(failure)) {
+            breaker.onFailure();
+        } else {
+            breaker.onIgnored();
+        }
+    }
+
+    // Only failures that say the model is overloaded lower the limit; other errors leave it alone
+    private static void sample(AdaptiveConcurrencyLimiter.Permit permit, Throwable failure) {
+        if (isOverload(failure)) {
+            permit.onOverload();
+        } else {
+            permit.release();
+        }
+    }
+
+    static boolean isOverload(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException response) {
+                int status = response.getStatusCode().value();
+                return status == 429 || status == 503;
+            }
+            // Spring AI reports 5xx as transient, and 4xx (429 included) with the status leading the message
+            if (cause instanceof TransientAiException || cause instanceof SocketTimeoutException
+                    || cause instanceof HttpTimeoutException || cause instanceof LlmTimeoutException
+                    || (cause.getMessage() != null && cause.getMessage().startsWith("429"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Overload, plus server errors and connections that failed; these are worth a retry
+    static boolean isUpstreamFailure(Throwable failure) {
+        if (isOverload(failure)) {
+            return true;
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException response) {
+                return response.getStatusCode().is5xxServerError();
+            }
+            if (cause instanceof ResourceAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void destroy() {
+        attempts.shutdownNow();
+    }
+}
@@ -0,0 +1,10 @@
+package edu.regis.stemulator.llm;
+
+// Order in which queued ChatClient calls are admitted when a model is at its limit
+public enum LlmPriority {
+	// A student is waiting on the response
+	INTERACTIVE,
+	STANDARD,
+	// Lab generation and batch evaluation, which can tolerate waiting
+	BACKGROUND
+}
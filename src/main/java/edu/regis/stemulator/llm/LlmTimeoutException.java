@@ -0,0 +1,14 @@
+package edu.regis.stemulator.llm;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class LlmTimeoutException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public LlmTimeoutException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,92 @@
+package edu.regis.stemulator.llm;
+
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.observation.ChatModelObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationFilter;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationView;
+
+/**
+ * Records prompt and completion tokens from each ChatResponse as distribution summaries
+ * tagged with the {@link LlmEndpoint} that made the call, and adds the same endpoint tag
+ * to Spring AI's own chat model metrics.
+ */
+@Component
+public class LlmTokenUsageObservationHandler implements ObservationHandler<ChatModelObservationContext>, ObservationFilter {
+
+    public static final String TOKENS_METRIC = "stemulator.llm.tokens";
+
+    private final MeterRegistry meterRegistry;
+
+    public LlmTokenUsageObservationHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ChatModelObservationContext;
+    }
+
+    @Override
+    public void onStop(ChatModelObservationContext context) {
+        ChatResponse response = context.getResponse();
+        ChatResponseMetadata metadata = response != null ? response.getMetadata() : null;
+        Usage usage = metadata != null ? metadata.getUsage() : null;
+        if (usage == null) {
+            return;
+        }
+        String endpoint = endpointOf(context);
+        String model = StringUtils.hasText(metadata.getModel()) ? metadata.getModel() : requestModel(context);
+        record(endpoint, model, "prompt", usage.getPromptTokens());
+        record(endpoint, model, "completion", usage.getCompletionTokens());
+    }
+
+    @Override
+    public Observation.Context map(Observation.Context context) {
+        if (context instanceof ChatModelObservationContext) {
+            context.addLowCardinalityKeyValue(KeyValue.of(LlmGateway.ENDPOINT_TAG, endpointOf(context)));
+        }
+        return context;
+    }
+
+    private void record(String endpoint, String model, String type, Integer tokens) {
+        if (tokens == null) {
+            return;
+        }
+        DistributionSummary.builder(TOKENS_METRIC)
+                .description("Tokens per model call")
+                .baseUnit("tokens")
+                .tag(LlmGateway.ENDPOINT_TAG, endpoint)
+                .tag(LlmGateway.MODEL_TAG, model)
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(tokens);
+    }
+
+    // The gateway's observation is an ancestor of the chat model observation (via the chat client's)
+    static String endpointOf(Observation.ContextView context) {
+        ObservationView parent = context.getParentObservation();
+        while (parent != null) {
+            KeyValue endpoint = parent.getContextView().getLowCardinalityKeyValue(LlmGateway.ENDPOINT_TAG);
+            if (endpoint != null) {
+                return endpoint.getValue();
+            }
+            parent = parent.getContextView().getParentObservation();
+        }
+        return "unknown";
+    }
+
+    private static String requestModel(Observation.ContextView context) {
+        KeyValue model = context.getLowCardinalityKeyValue("gen_ai.request.model");
+        return model != null ? model.getValue() : "unknown";
+    }
+}
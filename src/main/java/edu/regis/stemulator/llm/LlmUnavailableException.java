@@ -0,0 +1,44 @@
+package edu.regis.stemulator.llm;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// Answered with 503, and with Retry-After when the caller is told when to come back
+public class LlmUnavailableException extends ResponseStatusException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Duration retryAfter;
+
+	public LlmUnavailableException(String message) {
+		this(message, null);
+	}
+
+	public LlmUnavailableException(String message, Duration retryAfter) {
+		super(HttpStatus.SERVICE_UNAVAILABLE, message);
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		if (retryAfter == null) {
+			return HttpHeaders.EMPTY;
+		}
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+		return headers;
+	}
+
+	// The reason alone, as before, rather than ResponseStatusException's status-prefixed message
+	@Override
+	public String getMessage() {
+		return getReason();
+	}
+}
@@ -0,0 +1,20 @@
+package edu.regis.stemulator.llm;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
+
+/**
+ * The model and options chosen for one ChatClient call. Options are only set on the
+ * request when the route overrides something, so calls on the default route are sent
+ * exactly as before.
+ */
+public record ModelRoute(LlmEndpoint endpoint, String name, String model, ChatOptions options) {
+
+	public static final String DEFAULT = "default";
+	public static final String STANDARD = "standard";
+	public static final String LARGE_PROMPT = "large_prompt";
+
+	public ChatClient.ChatClientRequestSpec apply(ChatClient.ChatClientRequestSpec request) {
+		return options != null ? request.options(options) : request;
+	}
+}
@@ -0,0 +1,91 @@
+package edu.regis.stemulator.llm;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.openai.OpenAiChatOptions;
+
+import edu.regis.stemulator.config.LlmProperties;
+import edu.regis.stemulator.model.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Picks the model and options for a call from its endpoint and the estimated size of
+ * its prompt, so a quick chat turn can go to a small, fast model while lab generation
+ * and unusually long prompts go to a larger one. Endpoints without a configured route
+ * use spring.ai.openai.chat.options as they are.
+ */
+public class ModelRouter {
+
+    public static final String ROUTE_METRIC = "stemulator.llm.route";
+
+    // Close enough for choosing a model; prompts are not tokenized just to route them
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final Map<LlmEndpoint, LlmProperties.Route> routes;
+    private final String defaultModel;
+    private final MeterRegistry meterRegistry;
+
+    public ModelRouter(Map<LlmEndpoint, LlmProperties.Route> routes, String defaultModel, MeterRegistry meterRegistry) {
+        this.routes = routes;
+        this.defaultModel = defaultModel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ModelRoute route(LlmEndpoint endpoint, CharSequence prompt) {
+        return route(endpoint, prompt != null ? prompt.length() / CHARS_PER_TOKEN : 0);
+    }
+
+    public ModelRoute route(LlmEndpoint endpoint, List<Message> messages) {
+        long chars = 0;
+        if (messages != null) {
+            for (Message message : messages) {
+                chars += message.getContent() != null ? message.getContent().length() : 0;
+            }
+        }
+        return route(endpoint, chars / CHARS_PER_TOKEN);
+    }
+
+    public ModelRoute route(LlmEndpoint endpoint, long estimatedTokens) {
+        LlmProperties.Route settings = routes.get(endpoint);
+        ModelRoute route;
+        if (settings == null) {
+            route = new ModelRoute(endpoint, ModelRoute.DEFAULT, defaultModel, null);
+        } else if (settings.getLargeModel() != null && settings.getLargePromptTokens() != null
+                && estimatedTokens > settings.getLargePromptTokens()) {
+            route = route(endpoint, ModelRoute.LARGE_PROMPT, settings.getLargeModel(), settings);
+        } else {
+            route = route(endpoint, ModelRoute.STANDARD, settings.getModel(), settings);
+        }
+        return counted(route);
+    }
+
+    private ModelRoute counted(ModelRoute route) {
+        Counter.builder(ROUTE_METRIC)
+                .description("Calls per endpoint by the route and model chosen")
+                .tag(LlmGateway.ENDPOINT_TAG, route.endpoint().name())
+                .tag("route", route.name())
+                .tag(LlmGateway.MODEL_TAG, route.model())
+                .register(meterRegistry)
+                .increment();
+        return route;
+    }
+
+    private ModelRoute route(LlmEndpoint endpoint, String name, String model, LlmProperties.Route settings) {
+        if (model == null && settings.getTemperature() == null && settings.getMaxTokens() == null) {
+            return new ModelRoute(endpoint, name, defaultModel, null);
+        }
+        OpenAiChatOptions.Builder options = OpenAiChatOptions.builder();
+        if (model != null) {
+            options.model(model);
+        }
+        if (settings.getTemperature() != null) {
+            options.temperature(settings.getTemperature());
+        }
+        if (settings.getMaxTokens() != null) {
+            options.maxCompletionTokens(settings.getMaxTokens());
+        }
+        return new ModelRoute(endpoint, name, model != null ? model : defaultModel, options.build());
+    }
+}
@@ -0,0 +1,70 @@
+package edu.regis.stemulator.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls that share a key into one execution. The first caller
+ * (the leader) runs the call; callers arriving while it is in flight wait for and
+ * receive the same result or exception. Once a flight has {@code maxWaiters} waiters
+ * further callers run their own call rather than queueing behind a single request.
+ */
+public class SingleFlight {
+
+    private final int maxWaiters;
+    private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(int maxWaiters) {
+        this.maxWaiters = maxWaiters;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            if (existing.waiters.incrementAndGet() > maxWaiters) {
+                existing.waiters.decrementAndGet();
+                return call.get();
+            }
+            try {
+                return (T) existing.result.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+        try {
+            T value = call.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    int inFlight() {
+        return flights.size();
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+}
@@ -0,0 +1,23 @@
+package edu.regis.stemulator.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document("guidanceCache")
+public class CachedGuidance {
+	@Id
+	private String key;
+	private String labId;
+	private Integer partId;
+	private String guidance;
+	private Instant createdAt;
+	// Removed by the TTL index on this field
+	private Instant expireAt;
+}
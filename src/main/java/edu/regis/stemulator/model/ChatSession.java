@@ -0,0 +1,28 @@
+package edu.regis.stemulator.model;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document("chatSessions")
+public class ChatSession {
+	@Id
+	private String sessionId;
+	private List<Message> messages;
+	private Instant createdAt;
+	private Instant updatedAt;
+	// Removed by the TTL index on this field
+	private Instant expireAt;
+	// Incremented by every append, so a node can tell that its in-memory copy is stale
+	@JsonIgnore
+	private long revision;
+}
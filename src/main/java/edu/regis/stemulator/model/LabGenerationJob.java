@@ -0,0 +1,41 @@
+package edu.regis.stemulator.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+
+@Data
+@Document("labJobs")
+public class LabGenerationJob {
+	@Id
+	private String jobId;
+	private String labId;
+	private String discipline;
+	private String topic;
+	private String subTopic;
+	private String expertise;
+	private String simulation;
+	// Kept with the job so queued work survives a restart
+	@JsonIgnore
+	private byte[] screenshot;
+	private String screenshotFilename;
+	private String screenshotContentType;
+	private LabGenerationJobStatus status;
+	// The labId while the job is queued or running, unset after; a unique sparse index allows one active job per lab
+	@JsonIgnore
+	private String activeLabId;
+	// The node running or queueing the job, which holds it until leaseUntil unless it renews the lease
+	@JsonIgnore
+	private String owner;
+	@JsonIgnore
+	private Instant leaseUntil;
+	private ScienceLab lab;
+	private String error;
+	private Instant createdAt;
+	private Instant updatedAt;
+}
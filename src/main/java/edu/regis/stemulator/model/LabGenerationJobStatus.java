@@ -0,0 +1,8 @@
+package edu.regis.stemulator.model;
+
+public enum LabGenerationJobStatus {
+	QUEUED,
+	RUNNING,
+	DONE,
+	FAILED
+}
@@ -0,0 +1,20 @@
+package edu.regis.stemulator.model;
+
+import org.springframework.data.annotation.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Projection of a lab document without its learning goals and parts, for catalog listings
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LabSummary {
+	@Id
+	private String labId;
+	private String discipline;
+	private String topic;
+	private String subTopic;
+	private String description;
+}
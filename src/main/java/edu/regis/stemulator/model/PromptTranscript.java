@@ -0,0 +1,24 @@
+package edu.regis.stemulator.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import edu.regis.stemulator.llm.LlmEndpoint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Document("promptTranscripts")
+public class PromptTranscript {
+	@Id
+	private String id;
+	private LlmEndpoint endpoint;
+	// What the call was about, e.g. labId or labId/partId
+	private String subject;
+	private String prompt;
+	private String response;
+	private Instant createdAt;
+}
@@ -0,0 +1,49 @@
+package edu.regis.stemulator.prompt;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import edu.regis.stemulator.cache.LabSnapshot;
+import edu.regis.stemulator.config.GuidanceContextProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Chooses the lab JSON embedded in a guidance prompt. Guidance is always about one
+ * part, so by default only that part, its objective and success criterion and a short
+ * lab summary are sent; the full document is used when configured or when the part
+ * cannot be sliced out.
+ */
+@Component
+public class LabContextSelector {
+
+    private final GuidanceContextProperties properties;
+    private final Counter partContexts;
+    private final Counter fullContexts;
+
+    @Autowired
+    public LabContextSelector(GuidanceContextProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.partContexts = counter(meterRegistry, "part");
+        this.fullContexts = counter(meterRegistry, "full");
+    }
+
+    public String select(LabSnapshot snapshot, int partIndex) {
+        if (properties.getMode() == GuidanceContextProperties.Mode.PART) {
+            String json = snapshot.getPartContextJson(partIndex, properties.getSummaryMaxChars());
+            if (!json.isEmpty()) {
+                partContexts.increment();
+                return json;
+            }
+        }
+        fullContexts.increment();
+        return snapshot.getJson();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String context) {
+        return Counter.builder("stemulator.guidance.context")
+                .description("Lab context embedded in guidance prompts")
+                .tag("context", context)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,172 @@
+package edu.regis.stemulator.prompt;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import edu.regis.stemulator.config.PromptAuditProperties;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.model.PromptTranscript;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sampled prompt/response audit log. Request threads only roll the sampling dice and
+ * offer to a bounded buffer; formatting, truncation, logging and the optional write to
+ * the capped promptTranscripts collection happen on a single background writer, so a
+ * slow log pipeline or database never holds up a student request.
+ */
+@Slf4j
+@Component
+public class PromptAuditLogger implements DisposableBean {
+
+    // Own logger name so audit output can be routed or silenced separately
+    private static final Logger AUDIT = LoggerFactory.getLogger("stemulator.prompt.audit");
+
+    private final PromptAuditProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final Clock clock;
+    private final ArrayBlockingQueue<Entry> buffer;
+    private final Thread writer;
+
+    private final Counter written;
+    private final Counter dropped;
+
+    @Autowired
+    public PromptAuditLogger(PromptAuditProperties properties, MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this(properties, mongoTemplate, meterRegistry, Clock.systemUTC());
+    }
+
+    PromptAuditLogger(PromptAuditProperties properties, MongoTemplate mongoTemplate, MeterRegistry meterRegistry, Clock clock) {
+        this.properties = properties;
+        this.mongoTemplate = properties.isPersistent() ? mongoTemplate : null;
+        this.clock = clock;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, properties.getBufferSize()));
+        this.written = counter(meterRegistry, "written");
+        this.dropped = counter(meterRegistry, "dropped");
+        Gauge.builder("stemulator.prompt.audit.buffer", buffer, ArrayBlockingQueue::size)
+                .description("Prompt transcripts waiting to be written")
+                .register(meterRegistry);
+        this.writer = properties.isEnabled() ? Thread.ofVirtual().name("prompt-audit").start(this::drain) : null;
+    }
+
+    /**
+     * Audits a call if it is sampled. The response is only turned into text on the
+     * writer thread; pass null when there is no single response, e.g. for streams.
+     */
+    public void record(LlmEndpoint endpoint, String subject, String prompt, Object response) {
+        if (!properties.isEnabled() || !sampled(endpoint)) {
+            return;
+        }
+        if (!buffer.offer(new Entry(endpoint, subject, prompt, response, clock.instant()))) {
+            dropped.increment();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCappedCollection() {
+        if (mongoTemplate == null) {
+            return;
+        }
+        Thread.ofVirtual().name("prompt-audit-collection").start(() -> {
+            try {
+                if (!mongoTemplate.collectionExists(PromptTranscript.class)) {
+                    mongoTemplate.createCollection(PromptTranscript.class, CollectionOptions.empty()
+                            .capped()
+                            .size(properties.getCappedSize().toBytes())
+                            .maxDocuments(properties.getCappedMaxDocuments()));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not create capped promptTranscripts collection: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                write(buffer.take());
+            }
+        } catch (InterruptedException e) {
+            // Shutting down; flush what is already buffered
+            Entry entry;
+            while ((entry = buffer.poll()) != null) {
+                write(entry);
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            String prompt = entry.prompt() != null ? entry.prompt() : "";
+            String response = entry.response() != null ? entry.response().toString() : null;
+            int maxChars = maxChars(entry.endpoint());
+            AUDIT.atInfo()
+                    .addKeyValue("endpoint", entry.endpoint())
+                    .addKeyValue("subject", entry.subject())
+                    .addKeyValue("promptChars", prompt.length())
+                    .addKeyValue("responseChars", response != null ? response.length() : 0)
+                    .log("{} {}\nprompt: {}\nresponse: {}",
+                            entry.endpoint(), entry.subject(), truncate(prompt, maxChars), truncate(response, maxChars));
+            if (mongoTemplate != null) {
+                PromptTranscript transcript = new PromptTranscript();
+                transcript.setEndpoint(entry.endpoint());
+                transcript.setSubject(entry.subject());
+                transcript.setPrompt(prompt);
+                transcript.setResponse(response);
+                transcript.setCreatedAt(entry.createdAt());
+                mongoTemplate.insert(transcript);
+            }
+            written.increment();
+        } catch (RuntimeException e) {
+            log.warn("Could not write prompt transcript for {} {}: {}", entry.endpoint(), entry.subject(), e.getMessage());
+        }
+    }
+
+    private boolean sampled(LlmEndpoint endpoint) {
+        PromptAuditProperties.Endpoint override = properties.getEndpoints().get(endpoint);
+        double rate = override != null && override.getSampleRate() != null ? override.getSampleRate() : properties.getSampleRate();
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private int maxChars(LlmEndpoint endpoint) {
+        PromptAuditProperties.Endpoint override = properties.getEndpoints().get(endpoint);
+        return override != null && override.getMaxChars() != null ? override.getMaxChars() : properties.getMaxChars();
+    }
+
+    static String truncate(String text, int maxChars) {
+        if (text == null || text.length() <= maxChars) {
+            return text;
+        }
+        return text.substring(0, maxChars) + "... [" + (text.length() - maxChars) + " more chars]";
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("stemulator.prompt.audit")
+                .description("Sampled prompt transcripts by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(LlmEndpoint endpoint, String subject, String prompt, Object response, Instant createdAt) { }
+}
@@ -0,0 +1,108 @@
+package edu.regis.stemulator.prompt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import edu.regis.stemulator.util.Digests;
+
+/**
+ * A prompt template compiled once into literal segments and named {@code {{placeholder}}}
+ * slots. Rendering converts each distinct value to a string once, sizes the output
+ * exactly from the literal and value lengths, and copies every segment a single time.
+ */
+public final class PromptTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([A-Za-z][A-Za-z0-9_]*)\\s*}}");
+
+    private final String name;
+    // Identifies the template text, so results derived from a prompt can tell an edited template apart
+    private final String fingerprint;
+    // literals[i] precedes slot i; the final literal follows the last slot
+    private final String[] literals;
+    // Index into names for each slot, so a placeholder used twice is rendered once
+    private final int[] slots;
+    private final String[] names;
+    private final int literalLength;
+
+    private PromptTemplate(String name, String fingerprint, String[] literals, int[] slots, String[] names) {
+        this.name = name;
+        this.fingerprint = fingerprint;
+        this.literals = literals;
+        this.slots = slots;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static PromptTemplate compile(String name, String text) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        int end = 0;
+        while (matcher.find()) {
+            literals.add(text.substring(end, matcher.start()));
+            String placeholder = matcher.group(1);
+            int index = names.indexOf(placeholder);
+            if (index < 0) {
+                index = names.size();
+                names.add(placeholder);
+            }
+            slots.add(index);
+            end = matcher.end();
+        }
+        literals.add(text.substring(end));
+        return new PromptTemplate(
+                name,
+                Digests.sha256Hex(text),
+                literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(),
+                names.toArray(String[]::new));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Set<String> getPlaceholders() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(List.of(names)));
+    }
+
+    /**
+     * Renders the template. Every placeholder must have an entry in {@code values};
+     * a null value renders as an empty string.
+     */
+    public String render(Map<String, ?> values) {
+        String[] rendered = new String[names.length];
+        int length = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            if (!values.containsKey(names[i])) {
+                throw new IllegalArgumentException("No value for placeholder '" + names[i] + "' in prompt template " + name);
+            }
+            Object value = values.get(names[i]);
+            rendered[i] = value == null ? "" : value.toString();
+        }
+        for (int slot : slots) {
+            length += rendered[slot].length();
+        }
+
+        StringBuilder prompt = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            prompt.append(literals[i]).append(rendered[slots[i]]);
+        }
+        return prompt.append(literals[literals.length - 1]).toString();
+    }
+}
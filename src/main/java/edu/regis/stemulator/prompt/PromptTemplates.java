@@ -0,0 +1,121 @@
+package edu.regis.stemulator.prompt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import edu.regis.stemulator.config.PromptProperties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads and compiles prompt templates from {@code stemulator.prompts.location}. Every
+ * known template is compiled at startup, so a missing template or an unknown placeholder
+ * fails the boot instead of a student request. Pointing the location at a directory
+ * outside the jar and setting a reload interval lets a template be edited without a
+ * redeploy; a template that fails to load keeps serving the last good version.
+ */
+@Slf4j
+@Component
+public class PromptTemplates {
+
+    public static final String SCIENCE_GUIDE = "science-guide";
+    public static final String SCIENCE_LAB = "science-lab";
+    public static final String CONVERSATION_SUMMARY = "conversation-summary";
+
+    // The values each service renders its template with; a template may not use any other placeholder
+    private static final Map<String, Set<String>> PLACEHOLDERS = Map.of(
+            SCIENCE_GUIDE, Set.of("topic", "partId", "responseFormat", "studentName", "labId", "labPartTitle", "setup",
+                    "observations", "predictions", "history", "scienceLabJson", "evidenceCsv", "evidenceStats"),
+            SCIENCE_LAB, Set.of("expertise", "simulation", "labId", "discipline", "topic", "subTopic"),
+            CONVERSATION_SUMMARY, Set.of("maxWords", "previousSummary", "transcript"));
+
+    private final ResourceLoader resourceLoader;
+    private final PromptProperties properties;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Loaded> templates = new ConcurrentHashMap<>();
+
+    public PromptTemplates() {
+        this(new DefaultResourceLoader(), new PromptProperties());
+    }
+
+    @Autowired
+    public PromptTemplates(ResourceLoader resourceLoader, PromptProperties properties) {
+        this(resourceLoader, properties, Clock.systemUTC());
+        PLACEHOLDERS.keySet().forEach(name -> templates.put(name, load(name)));
+    }
+
+    PromptTemplates(ResourceLoader resourceLoader, PromptProperties properties, Clock clock) {
+        this.resourceLoader = resourceLoader;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    public PromptTemplate get(String name) {
+        Loaded loaded = templates.computeIfAbsent(name, this::load);
+        if (properties.getReloadInterval().isZero()
+                || clock.millis() - loaded.checkedAt < properties.getReloadInterval().toMillis()) {
+            return loaded.template;
+        }
+        return templates.compute(name, (key, current) -> reloadIfModified(key, current)).template;
+    }
+
+    private Loaded reloadIfModified(String name, Loaded current) {
+        try {
+            long lastModified = lastModified(resource(name));
+            if (lastModified == current.lastModified) {
+                return new Loaded(current.template, current.lastModified, clock.millis());
+            }
+            Loaded reloaded = load(name);
+            log.info("Reloaded prompt template {}", name);
+            return reloaded;
+        } catch (RuntimeException e) {
+            log.warn("Could not reload prompt template {}, keeping the previous version: {}", name, e.getMessage());
+            return new Loaded(current.template, current.lastModified, clock.millis());
+        }
+    }
+
+    private Loaded load(String name) {
+        Resource resource = resource(name);
+        try (InputStream in = resource.getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            PromptTemplate template = PromptTemplate.compile(name, text);
+            Set<String> unknown = new TreeSet<>(template.getPlaceholders());
+            unknown.removeAll(PLACEHOLDERS.getOrDefault(name, template.getPlaceholders()));
+            if (!unknown.isEmpty()) {
+                throw new IllegalStateException("Prompt template " + name + " from " + resource.getDescription()
+                        + " uses unknown placeholders " + unknown);
+            }
+            return new Loaded(template, lastModified(resource), clock.millis());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load prompt template " + name + " from " + resource.getDescription(), e);
+        }
+    }
+
+    private Resource resource(String name) {
+        String location = properties.getLocation();
+        return resourceLoader.getResource((location.endsWith("/") ? location : location + "/") + name + ".txt");
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            // Resources inside a jar may not report a modification time
+            return -1;
+        }
+    }
+
+    private record Loaded(PromptTemplate template, long lastModified, long checkedAt) { }
+}
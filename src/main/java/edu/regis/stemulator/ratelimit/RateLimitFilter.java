@@ -0,0 +1,214 @@
+package edu.regis.stemulator.ratelimit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import edu.regis.stemulator.config.RateLimitProperties;
+import edu.regis.stemulator.util.Digests;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for the endpoints that reach the model. Each POST is charged one
+ * request and an estimate of its tokens against the buckets of the student, the class
+ * and the API key it belongs to, and is answered 429 with Retry-After when any of them
+ * is empty, so one runaway client cannot spend the quota the whole school shares.
+ * Requests naming neither a class nor an API key are also charged to their client
+ * address, so rotating X-Student-Id does not escape the limits. The number of buckets
+ * is capped; full buckets are swept at most once per interval to make room.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String STUDENT_HEADER = "X-Student-Id";
+    public static final String CLASS_HEADER = "X-Class-Id";
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String REJECTED_METRIC = "stemulator.rate.limit.rejected";
+
+    private static final Pattern SESSION_PATH = Pattern.compile("/chat/sessions/([^/]+)");
+    private static final Pattern LAB_PATH = Pattern.compile("/guides/lab/([^/]+)");
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt;
+
+    @Autowired
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+        this.nextSweepAt = new AtomicLong(nanoTime.getAsLong());
+        Gauge.builder("stemulator.rate.limit.keys", buckets, Map::size)
+                .description("Rate limit buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || !HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return properties.getPaths().stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long tokens = estimateTokens(request);
+        List<Charge> charges = new ArrayList<>(8);
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        boolean hasApiKey = apiKey != null && !apiKey.isBlank();
+        String classroom = request.getHeader(CLASS_HEADER);
+        if (!hasApiKey && (classroom == null || classroom.isBlank())) {
+            // Charged first, so a client rotating student ids is stopped before it creates their buckets
+            addCharges(charges, "address", request.getRemoteAddr(), properties.getAddress(), tokens);
+        }
+        addCharges(charges, "student", studentKey(request), properties.getStudent(), tokens);
+        addCharges(charges, "class", classKey(request), properties.getClassroom(), tokens);
+        if (hasApiKey) {
+            // Only a digest of the key is held in memory
+            addCharges(charges, "api_key", Digests.sha256Hex(apiKey), properties.getApiKey(), tokens);
+        }
+
+        long now = nanoTime.getAsLong();
+        List<TokenBucket> taken = new ArrayList<>(charges.size());
+        for (Charge charge : charges) {
+            TokenBucket bucket = bucket(charge, now);
+            long wait = bucket != null ? bucket.tryAcquire(charge.amount(), now) : 0;
+            if (bucket == null || wait > 0) {
+                for (int i = 0; i < taken.size(); i++) {
+                    taken.get(i).refund(charges.get(i).amount());
+                }
+                if (bucket == null) {
+                    reject(response, charge.scope(), "keys", Math.max(0, nextSweepAt.get() - now));
+                } else {
+                    reject(response, charge.scope(), charge.kind(), wait);
+                }
+                return;
+            }
+            taken.add(bucket);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void addCharges(List<Charge> charges, String scope, String id, RateLimitProperties.Budget budget, long tokens) {
+        if (id == null) {
+            return;
+        }
+        if (budget.getRequestsPerMinute() > 0) {
+            charges.add(new Charge(scope, "requests", scope + ":requests:" + id,
+                    budget.getRequestsPerMinute(), budget.getRequestBurst(), 1));
+        }
+        if (budget.getTokensPerMinute() > 0) {
+            // A single request larger than the burst could never be admitted, so it is charged a full burst
+            long burst = Math.max(1, budget.getTokenBurst());
+            charges.add(new Charge(scope, "tokens", scope + ":tokens:" + id,
+                    budget.getTokensPerMinute(), burst, Math.min(tokens, burst)));
+        }
+    }
+
+    // Returns null when the cap leaves no room for a new bucket; concurrent inserts may overshoot it by a few
+    private TokenBucket bucket(Charge charge, long now) {
+        TokenBucket bucket = buckets.get(charge.key());
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxKeys()) {
+            sweep(now);
+            if (buckets.size() >= properties.getMaxKeys()) {
+                return null;
+            }
+        }
+        return buckets.computeIfAbsent(charge.key(), key -> new TokenBucket(charge.perMinute(), charge.burst(), now));
+    }
+
+    // Only one caller per interval pays for the scan
+    private void sweep(long now) {
+        long due = nextSweepAt.get();
+        if (now - due >= 0 && nextSweepAt.compareAndSet(due, now + properties.getSweepInterval().toNanos())) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    private void reject(HttpServletResponse response, String scope, String kind, long waitNanos) throws IOException {
+        long retryAfter = Math.min(properties.getMaxRetryAfter().toSeconds(),
+                Math.max(1, (TimeUnit.NANOSECONDS.toMillis(waitNanos) + 999) / 1000));
+        Counter.builder(REJECTED_METRIC)
+                .description("Requests turned away by the rate limiter")
+                .tag("scope", scope)
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .increment();
+        log.debug("Rate limited {} {} budget, retry after {}s", scope, kind, retryAfter);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded for " + scope + " " + kind);
+    }
+
+    // Prompt size follows the request body; the completion is not known yet, so a typical one is assumed
+    private long estimateTokens(HttpServletRequest request) {
+        long length = Math.max(0, request.getContentLengthLong());
+        return length / Math.max(1, properties.getBytesPerToken()) + properties.getCompletionTokens();
+    }
+
+    private static String studentKey(HttpServletRequest request) {
+        String student = request.getHeader(STUDENT_HEADER);
+        if (student != null && !student.isBlank()) {
+            return student.strip();
+        }
+        // Without a student identity only the shared address budget applies; a classroom behind one NAT shares an address
+        String session = pathVariable(SESSION_PATH, path(request));
+        return session != null ? "session:" + session : null;
+    }
+
+    private static String classKey(HttpServletRequest request) {
+        String classroom = request.getHeader(CLASS_HEADER);
+        if (classroom != null && !classroom.isBlank()) {
+            return classroom.strip();
+        }
+        String lab = pathVariable(LAB_PATH, path(request));
+        return lab != null ? "lab:" + lab : null;
+    }
+
+    private static String pathVariable(Pattern pattern, String path) {
+        Matcher matcher = pattern.matcher(path);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record Charge(String scope, String kind, String key, long perMinute, long burst, long amount) { }
+}
@@ -0,0 +1,49 @@
+package edu.regis.stemulator.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Rather than a token count and a refill timestamp, the whole
+ * state is the single instant at which the bucket will next be full (the generic cell
+ * rate algorithm), so taking tokens is one compare-and-set on a long.
+ */
+public final class TokenBucket {
+
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long tokensPerMinute, long burst, long nowNanos) {
+        this.nanosPerToken = Math.max(1, NANOS_PER_MINUTE / tokensPerMinute);
+        this.burstNanos = Math.max(1, burst) * nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /** Takes the tokens and returns 0, or takes nothing and returns the nanoseconds until they would be available. */
+    public long tryAcquire(long tokens, long nowNanos) {
+        long cost = tokens * nanosPerToken;
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + cost;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Gives back tokens taken for a request that was rejected by another bucket
+    public void refund(long tokens) {
+        fullAt.addAndGet(-tokens * nanosPerToken);
+    }
+
+    // A full bucket is indistinguishable from a new one, so it can be dropped
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,9 @@
+package edu.regis.stemulator.repository.mongo;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import edu.regis.stemulator.model.CachedGuidance;
+
+public interface CachedGuidanceRepository extends MongoRepository<CachedGuidance, String> {
+
+}
@@ -0,0 +1,9 @@
+package edu.regis.stemulator.repository.mongo;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import edu.regis.stemulator.model.ChatSession;
+
+public interface ChatSessionRepository extends MongoRepository<ChatSession, String> {
+
+}
@@ -0,0 +1,21 @@
+package edu.regis.stemulator.repository.mongo;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import edu.regis.stemulator.model.LabGenerationJob;
+
+public interface LabGenerationJobLeaseRepository {
+
+	// Atomically moves a queued job the owner holds to RUNNING; empty when another node took it over
+	Optional<LabGenerationJob> claim(String jobId, String owner, Instant leaseUntil);
+
+	// Takes over queued or running jobs whose lease ran out, e.g. because their node stopped, re-queued for the new owner
+	List<LabGenerationJob> takeOverExpired(String owner, Instant now, Instant leaseUntil);
+
+	// Extends the leases of the given jobs the owner still holds
+	long renewLeases(String owner, Collection<String> jobIds, Instant leaseUntil);
+
+}
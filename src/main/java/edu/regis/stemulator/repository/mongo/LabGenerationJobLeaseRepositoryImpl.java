@@ -0,0 +1,103 @@
+package edu.regis.stemulator.repository.mongo;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import edu.regis.stemulator.model.LabGenerationJob;
+import edu.regis.stemulator.model.LabGenerationJobStatus;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ownership of lab generation jobs across nodes. A job is held by the node that queued
+ * it for as long as that node keeps renewing its lease; every transition is a single
+ * findAndModify guarded by status and owner, so two nodes never run the same job.
+ */
+@Slf4j
+public class LabGenerationJobLeaseRepositoryImpl implements LabGenerationJobLeaseRepository {
+
+    private static final Set<LabGenerationJobStatus> ACTIVE = EnumSet.of(LabGenerationJobStatus.QUEUED, LabGenerationJobStatus.RUNNING);
+
+    private final MongoTemplate mongoTemplate;
+
+    public LabGenerationJobLeaseRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Optional<LabGenerationJob> claim(String jobId, String owner, Instant leaseUntil) {
+        Query query = Query.query(Criteria.where("_id").is(jobId)
+                .and("status").is(LabGenerationJobStatus.QUEUED)
+                .and("owner").is(owner));
+        Update update = new Update()
+                .set("status", LabGenerationJobStatus.RUNNING)
+                .set("leaseUntil", leaseUntil)
+                .set("updatedAt", Instant.now());
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), LabGenerationJob.class));
+    }
+
+    public List<LabGenerationJob> takeOverExpired(String owner, Instant now, Instant leaseUntil) {
+        Query expired = Query.query(expired(now));
+        expired.fields().include("_id");
+        List<LabGenerationJob> taken = new ArrayList<>();
+        for (LabGenerationJob candidate : mongoTemplate.find(expired, LabGenerationJob.class)) {
+            // The lease is checked again, so a job renewed or taken by another node since the find is left alone
+            Query query = Query.query(Criteria.where("_id").is(candidate.getJobId()).andOperator(expired(now)));
+            Update update = new Update()
+                    .set("status", LabGenerationJobStatus.QUEUED)
+                    .set("owner", owner)
+                    .set("leaseUntil", leaseUntil)
+                    .set("updatedAt", now);
+            LabGenerationJob job = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), LabGenerationJob.class);
+            if (job != null) {
+                taken.add(job);
+            }
+        }
+        return taken;
+    }
+
+    public long renewLeases(String owner, Collection<String> jobIds, Instant leaseUntil) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        Query query = Query.query(Criteria.where("_id").in(jobIds)
+                .and("owner").is(owner)
+                .and("status").in(ACTIVE));
+        return mongoTemplate.updateMulti(query, new Update().set("leaseUntil", leaseUntil), LabGenerationJob.class)
+                .getModifiedCount();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexesInBackground() {
+        Thread.ofVirtual().name("lab-job-index").start(() -> {
+            try {
+                // One queued or running job per lab; activeLabId is unset once a job finishes
+                mongoTemplate.indexOps(LabGenerationJob.class)
+                        .createIndex(new Index().on("activeLabId", Sort.Direction.ASC).unique().sparse());
+            } catch (RuntimeException e) {
+                log.warn("Could not create active job index on labJobs: {}", e.getMessage());
+            }
+        });
+    }
+
+    // Active jobs without a lease were left by a version that did not record one
+    private static Criteria expired(Instant now) {
+        return Criteria.where("status").in(ACTIVE)
+                .orOperator(Criteria.where("leaseUntil").lt(now), Criteria.where("leaseUntil").exists(false));
+    }
+}
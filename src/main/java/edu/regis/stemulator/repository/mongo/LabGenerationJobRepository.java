@@ -0,0 +1,14 @@
+package edu.regis.stemulator.repository.mongo;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import edu.regis.stemulator.model.LabGenerationJob;
+import edu.regis.stemulator.model.LabGenerationJobStatus;
+
+public interface LabGenerationJobRepository extends MongoRepository<LabGenerationJob, String>, LabGenerationJobLeaseRepository {
+
+	Optional<LabGenerationJob> findFirstByLabIdAndStatusIn(String labId, Collection<LabGenerationJobStatus> statuses);
+}
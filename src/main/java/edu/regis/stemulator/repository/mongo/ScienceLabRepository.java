@@ -1,12 +1,19 @@
 package edu.regis.stemulator.repository.mongo;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import edu.regis.stemulator.model.LabSummary;
 import edu.regis.stemulator.model.ScienceLab;
 
 import java.util.List;
 
-public interface ScienceLabRepository extends MongoRepository<ScienceLab, String> {
+public interface ScienceLabRepository extends MongoRepository<ScienceLab, String>, ScienceLabSearchRepository {
+	
+	// Summary pages are keyset-paged on labId, so a page costs the same however deep it is
+	List<LabSummary> findAllByOrderByLabIdAsc(Limit limit);
+	
+	List<LabSummary> findByLabIdGreaterThanOrderByLabIdAsc(String labId, Limit limit);
 	
 }
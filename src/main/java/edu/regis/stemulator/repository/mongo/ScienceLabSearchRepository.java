@@ -0,0 +1,13 @@
+package edu.regis.stemulator.repository.mongo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import edu.regis.stemulator.model.LabSummary;
+
+public interface ScienceLabSearchRepository {
+
+	// Null filters are ignored; text matches description and learning goals, best matches first
+	Page<LabSummary> searchSummaries(String discipline, String topic, String subTopic, String text, Pageable pageable);
+
+}
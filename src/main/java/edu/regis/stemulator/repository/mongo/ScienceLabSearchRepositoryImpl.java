@@ -0,0 +1,97 @@
+package edu.regis.stemulator.repository.mongo;
+
+import java.util.List;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import edu.regis.stemulator.model.LabSummary;
+import edu.regis.stemulator.model.ScienceLab;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catalog search over the labs collection. Filters are equality matches served by the
+ * discipline/topic/subTopic compound index, free text goes through the text index on
+ * the description and learning goals; both indexes are created at startup.
+ */
+@Slf4j
+public class ScienceLabSearchRepositoryImpl implements ScienceLabSearchRepository {
+
+    static final String CATALOG_INDEX = "discipline_topic_subTopic";
+    static final String TEXT_INDEX = "lab_text";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ScienceLabSearchRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public Page<LabSummary> searchSummaries(String discipline, String topic, String subTopic, String text, Pageable pageable) {
+        Query query = hasText(text)
+                ? TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(text)).sortByScore()
+                : new Query();
+        addFilter(query, "discipline", discipline);
+        addFilter(query, "topic", topic);
+        addFilter(query, "subTopic", subTopic);
+        query.fields().include("discipline", "topic", "subTopic", "description");
+        query.with(pageable).with(Sort.by("labId"));
+
+        List<LabSummary> labs = mongoTemplate.find(query, LabSummary.class, collection());
+        // The count only runs when the page alone cannot tell the total
+        return PageableExecutionUtils.getPage(labs, pageable,
+                () -> mongoTemplate.count(Query.of(query).limit(0).skip(0), ScienceLab.class));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexesInBackground() {
+        Thread.ofVirtual().name("lab-search-index").start(() -> {
+            try {
+                ensureIndexes();
+            } catch (RuntimeException e) {
+                log.warn("Could not create lab search indexes: {}", e.getMessage());
+            }
+        });
+    }
+
+    public void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(ScienceLab.class);
+        indexOps.createIndex(new Index()
+                .on("discipline", Sort.Direction.ASC)
+                .on("topic", Sort.Direction.ASC)
+                .on("subTopic", Sort.Direction.ASC)
+                .named(CATALOG_INDEX));
+        indexOps.createIndex(TextIndexDefinition.builder()
+                .named(TEXT_INDEX)
+                .onField("description", 2F)
+                .onField("learningGoals.bigIdea", 2F)
+                .onField("learningGoals.objectives")
+                .onField("learningGoals.successCriteria")
+                .build());
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(ScienceLab.class);
+    }
+
+    private static void addFilter(Query query, String field, String value) {
+        if (hasText(value)) {
+            query.addCriteria(Criteria.where(field).is(value));
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
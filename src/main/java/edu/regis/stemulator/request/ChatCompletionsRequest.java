@@ -8,4 +8,8 @@ import lombok.Data;
 @Data
 public class ChatCompletionsRequest {
 	List<Message> messages;
+	// OpenAI-compatible clients ask for a streamed reply with "stream": true
+	boolean stream;
+	// OpenAI's end-user identifier; lets a long conversation's summary be cached for that student
+	String user;
 }
@@ -0,0 +1,18 @@
+package edu.regis.stemulator.request;
+
+import java.util.List;
+
+import edu.regis.stemulator.model.Message;
+import lombok.Data;
+
+@Data
+public class StudentEvalBatchRequest {
+	List<Item> items;
+
+	@Data
+	public static class Item {
+		// Caller's identifier for the transcript, echoed back with its result
+		String id;
+		List<Message> messages;
+	}
+}
@@ -0,0 +1,46 @@
+package edu.regis.stemulator.response;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// OpenAI-compatible "chat.completion.chunk" streamed as SSE data
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChatCompletionsChunk {
+	private String id;
+	private String object = "chat.completion.chunk";
+	private Long created;
+	private List<Choice> choices;
+
+	public ChatCompletionsChunk(String id, Long created, Delta delta, String finishReason) {
+		this(id, "chat.completion.chunk", created, List.of(new Choice(0, delta, finishReason)));
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Choice {
+		private Integer index;
+		private Delta delta;
+		@JsonProperty("finish_reason")
+		@JsonInclude(JsonInclude.Include.ALWAYS)
+		private String finishReason;
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	public static class Delta {
+		private String role;
+		private String content;
+	}
+}
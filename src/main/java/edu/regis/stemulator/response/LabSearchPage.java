@@ -0,0 +1,19 @@
+package edu.regis.stemulator.response;
+
+import java.util.List;
+
+import edu.regis.stemulator.model.LabSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LabSearchPage {
+	private List<LabSummary> labs;
+	private int page;
+	private int size;
+	private long totalElements;
+	private int totalPages;
+}
@@ -0,0 +1,17 @@
+package edu.regis.stemulator.response;
+
+import java.util.List;
+
+import edu.regis.stemulator.model.LabSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LabSummaryPage {
+	private List<LabSummary> labs;
+	// Pass back as ?cursor= for the next page; null on the last page
+	private String nextCursor;
+}
@@ -0,0 +1,34 @@
+package edu.regis.stemulator.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import edu.regis.stemulator.model.StudentEvalResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One NDJSON line of a batch evaluation: a per-transcript result, or the closing summary
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentEvalBatchItem {
+	public static final String OK = "ok";
+	public static final String FAILED = "failed";
+	public static final String TIMED_OUT = "timed_out";
+	public static final String SUMMARY = "summary";
+
+	private String status;
+	private Integer index;
+	private String id;
+	private StudentEvalResult result;
+	private String error;
+	private Long elapsedMillis;
+	// Only set on the summary line
+	private Integer succeeded;
+	private Integer failed;
+
+	public static StudentEvalBatchItem summary(int succeeded, int failed) {
+		return new StudentEvalBatchItem(SUMMARY, null, null, null, null, null, succeeded, failed);
+	}
+}
@@ -3,9 +3,12 @@ package edu.regis.stemulator.service;
 import java.util.List;
 
 import edu.regis.stemulator.model.Message;
+import reactor.core.publisher.Flux;
 
 public interface ChatCompletionsService {
 	
-	public Message postMessages(List<Message> messages);
+	public Message postMessages(List<Message> messages, String user);
+	
+	public Flux<String> streamMessages(List<Message> messages, String user);
 
 }
@@ -0,0 +1,20 @@
+package edu.regis.stemulator.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import edu.regis.stemulator.model.ChatSession;
+import edu.regis.stemulator.model.Message;
+
+public interface ChatSessionService {
+
+	public ChatSession createSession(List<Message> messages);
+
+	public Optional<ChatSession> getSession(String sessionId);
+
+	// Appends the message and the model's reply; empty when the session does not exist or has expired
+	public Optional<Message> postMessage(String sessionId, Message message);
+
+	public boolean deleteSession(String sessionId);
+
+}
@@ -0,0 +1,22 @@
+package edu.regis.stemulator.service;
+
+import java.util.Optional;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import edu.regis.stemulator.model.LabGenerationJob;
+
+public interface LabGenerationJobService {
+
+	public LabGenerationJob submit(
+			String labId, 
+			String discipline, 
+			String topic, 
+			String subTopic, 
+			String expertise, 
+			String simulation, 
+			MultipartFile screenshot);
+
+	public Optional<LabGenerationJob> getJob(String jobId);
+
+}
@@ -4,6 +4,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import edu.regis.stemulator.request.ScienceGuideRequest;
 import edu.regis.stemulator.response.ScienceGuideResponse;
+import reactor.core.publisher.Flux;
 
 public interface ScienceGuideService {
 	
@@ -13,6 +14,12 @@ public interface ScienceGuideService {
 			ScienceGuideRequest request,
 			MultipartFile evidence);
 	
+	public Flux<String> streamGuidance(
+			String labId, 
+			Integer partId, 
+			ScienceGuideRequest request,
+			MultipartFile evidence);
+	
 	public ScienceGuideResponse getExplanation(
 			String labId, 
 			Integer partId, 
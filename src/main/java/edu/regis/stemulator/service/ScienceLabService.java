@@ -6,6 +6,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 
 import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.response.LabSearchPage;
+import edu.regis.stemulator.response.LabSummaryPage;
 
 public interface ScienceLabService {
 	
@@ -13,6 +15,10 @@ public interface ScienceLabService {
 	 
 	public List<ScienceLab> getLabList();
 	
+	public LabSummaryPage getLabSummaries(String cursor, int size);
+	
+	public LabSearchPage searchLabs(String discipline, String topic, String subTopic, String text, int page, int size);
+	
 	public ScienceLab createLab(
 			String labId, 
 			String discipline, 
@@ -21,5 +27,16 @@ public interface ScienceLabService {
 			String expertise, 
 			String simulation, 
 			MultipartFile screenshot);
+	
+	public ScienceLab createLab(
+			String labId, 
+			String discipline, 
+			String topic, 
+			String subTopic, 
+			String expertise, 
+			String simulation, 
+			byte[] screenshot,
+			String screenshotFilename,
+			String screenshotContentType);
 
 }
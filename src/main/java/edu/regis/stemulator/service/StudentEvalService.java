@@ -4,7 +4,13 @@ import java.util.List;
 
 import edu.regis.stemulator.model.Message;
 import edu.regis.stemulator.model.StudentEvalResult;
+import edu.regis.stemulator.request.StudentEvalBatchRequest;
+import edu.regis.stemulator.response.StudentEvalBatchItem;
+import reactor.core.publisher.Flux;
 
 public interface StudentEvalService {
 	public StudentEvalResult getStudentEval(List<Message> messages);
+	
+	// One item per transcript in completion order, then a summary item
+	public Flux<StudentEvalBatchItem> evaluateBatch(List<StudentEvalBatchRequest.Item> items);
 }
@@ -7,33 +7,85 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import edu.regis.stemulator.config.ConversationProperties;
+import edu.regis.stemulator.config.LlmProperties;
+import edu.regis.stemulator.conversation.HistoryCompactor;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
 import edu.regis.stemulator.model.Message;
 import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.prompt.PromptTemplates;
 import edu.regis.stemulator.service.ChatCompletionsService;
+import edu.regis.stemulator.util.Digests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 
+@Slf4j
 @Service
 public class ChatCompletionsServiceImpl implements ChatCompletionsService {
 
 	private final ChatClient chatClient;
+	private final LlmGateway llmGateway;
+	private final HistoryCompactor historyCompactor;
 
+    // Test-only: an LlmGateway and HistoryCompactor with their default properties
     public ChatCompletionsServiceImpl(ChatClient.Builder chatClientBuilder) {
+        this(chatClientBuilder, new LlmGateway(new LlmProperties(), "default", ObservationRegistry.NOOP, new SimpleMeterRegistry()));
+    }
+
+    private ChatCompletionsServiceImpl(ChatClient.Builder chatClientBuilder, LlmGateway llmGateway) {
+        this(chatClientBuilder, llmGateway,
+                new HistoryCompactor(chatClientBuilder, llmGateway, new PromptTemplates(), new ConversationProperties(), new SimpleMeterRegistry()));
+    }
+
+    @Autowired
+    public ChatCompletionsServiceImpl(ChatClient.Builder chatClientBuilder, LlmGateway llmGateway, HistoryCompactor historyCompactor) {
         this.chatClient = chatClientBuilder.build();
+        this.llmGateway = llmGateway;
+        this.historyCompactor = historyCompactor;
     }
     
-	public Message postMessages(List<Message> messages) {
-		List<org.springframework.ai.chat.messages.Message> springMessages = convertMessages(messages);
+	public Message postMessages(List<Message> messages, String user) {
+		List<Message> compacted = historyCompactor.compact(LlmEndpoint.CHAT, HistoryCompactor.conversationId(user, messages), messages);
+		List<org.springframework.ai.chat.messages.Message> springMessages = convertMessages(compacted);
+		ModelRoute route = llmGateway.route(LlmEndpoint.CHAT, compacted);
 		
-		Message response = chatClient.prompt()
-                .messages(springMessages)
+		Message response = llmGateway.call(route, fingerprint(messages), () -> route.apply(chatClient.prompt()
+                .messages(springMessages))
                 .call()
-                .entity(Message.class);
+                .entity(Message.class));
 		
 		return response;
 	}
 	
-	private List<org.springframework.ai.chat.messages.Message> convertMessages(List<Message> input) {
+	public Flux<String> streamMessages(List<Message> messages, String user) {
+		List<Message> compacted = historyCompactor.compact(LlmEndpoint.CHAT, HistoryCompactor.conversationId(user, messages), messages);
+		List<org.springframework.ai.chat.messages.Message> springMessages = convertMessages(compacted);
+		ModelRoute route = llmGateway.route(LlmEndpoint.CHAT, compacted);
+		
+		// Cancelling the subscription (e.g. the client disconnected) aborts the upstream model call
+		return llmGateway.stream(route, () -> route.apply(chatClient.prompt()
+                .messages(springMessages))
+                .stream()
+                .content())
+                .doOnCancel(() -> log.debug("Chat completion stream cancelled before completion"));
+	}
+	
+	private static String fingerprint(List<Message> messages) {
+		StringBuilder canonical = new StringBuilder();
+		for (Message msg : messages) {
+			canonical.append(msg.getRole()).append('\u001f').append(msg.getContent()).append('\u001e');
+		}
+		return Digests.sha256Hex(canonical.toString());
+	}
+	
+	List<org.springframework.ai.chat.messages.Message> convertMessages(List<Message> input) {
 
 	    return input.stream()
 	            .map(msg -> switch (msg.getRole().toLowerCase()) {
@@ -0,0 +1,108 @@
+package edu.regis.stemulator.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.regis.stemulator.conversation.ChatSessionFullException;
+import edu.regis.stemulator.conversation.ChatSessionState;
+import edu.regis.stemulator.conversation.ChatSessionStore;
+import edu.regis.stemulator.conversation.HistoryCompactor;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
+import edu.regis.stemulator.model.ChatSession;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.service.ChatSessionService;
+
+@Service
+public class ChatSessionServiceImpl implements ChatSessionService {
+
+    private final ChatClient chatClient;
+    private final LlmGateway llmGateway;
+    private final HistoryCompactor historyCompactor;
+    private final ChatSessionStore sessionStore;
+
+    @Autowired
+    public ChatSessionServiceImpl(
+            ChatClient.Builder chatClientBuilder,
+            LlmGateway llmGateway,
+            HistoryCompactor historyCompactor,
+            ChatSessionStore sessionStore) {
+        this.chatClient = chatClientBuilder.build();
+        this.llmGateway = llmGateway;
+        this.historyCompactor = historyCompactor;
+        this.sessionStore = sessionStore;
+    }
+
+    public ChatSession createSession(List<Message> messages) {
+        ChatSessionState state = sessionStore.create(messages);
+        return snapshot(state);
+    }
+
+    public Optional<ChatSession> getSession(String sessionId) {
+        return sessionStore.find(sessionId).map(this::snapshot);
+    }
+
+    public Optional<Message> postMessage(String sessionId, Message message) {
+        return sessionStore.find(sessionId).map(state -> {
+            state.getLock().lock();
+            try {
+                if (state.getMessages().size() + 2 > sessionStore.getMaxMessages()) {
+                    throw new ChatSessionFullException("Chat session " + sessionId + " has reached its message limit");
+                }
+                List<Message> history = new ArrayList<>(state.getMessages());
+                history.add(message);
+
+                List<org.springframework.ai.chat.messages.Message> springMessages;
+                List<Message> compacted = historyCompactor.compact(LlmEndpoint.CHAT, sessionId, history);
+                if (compacted == history) {
+                    // Reuse the messages converted as the session grew; only the new one is converted
+                    springMessages = new ArrayList<>(state.getSpringMessages());
+                    springMessages.add(ChatSessionState.toSpringMessage(message));
+                } else {
+                    springMessages = compacted.stream().map(ChatSessionState::toSpringMessage).toList();
+                }
+
+                ModelRoute route = llmGateway.route(LlmEndpoint.CHAT, compacted);
+                Message reply = llmGateway.call(route, () -> route.apply(chatClient.prompt()
+                        .messages(springMessages))
+                        .call()
+                        .entity(Message.class));
+                // Nothing is appended, so the student can simply send the message again
+                if (reply == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "The model returned no reply, please try again");
+                }
+                if (reply.getRole() == null) {
+                    reply.setRole("assistant");
+                }
+
+                state.append(message);
+                state.append(reply);
+                sessionStore.appended(state, List.of(message, reply));
+                return reply;
+            } finally {
+                state.getLock().unlock();
+            }
+        });
+    }
+
+    public boolean deleteSession(String sessionId) {
+        return sessionStore.delete(sessionId);
+    }
+
+    private ChatSession snapshot(ChatSessionState state) {
+        state.getLock().lock();
+        try {
+            return state.toDocument();
+        } finally {
+            state.getLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package edu.regis.stemulator.service.impl;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.regis.stemulator.config.LabJobProperties;
+import edu.regis.stemulator.image.PreparedScreenshot;
+import edu.regis.stemulator.image.ScreenshotPreprocessor;
+import edu.regis.stemulator.llm.LlmUnavailableException;
+import edu.regis.stemulator.model.LabGenerationJob;
+import edu.regis.stemulator.model.LabGenerationJobStatus;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.LabGenerationJobRepository;
+import edu.regis.stemulator.service.LabGenerationJobService;
+import edu.regis.stemulator.service.ScienceLabService;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class LabGenerationJobServiceImpl implements LabGenerationJobService, DisposableBean {
+
+    private static final String GENERATION_FAILED = "Lab generation failed, please try again";
+
+    private static final Set<LabGenerationJobStatus> ACTIVE = EnumSet.of(LabGenerationJobStatus.QUEUED, LabGenerationJobStatus.RUNNING);
+
+    private final LabGenerationJobRepository jobRepository;
+    private final ScienceLabService scienceLabService;
+    private final LabJobProperties properties;
+    private final ScreenshotPreprocessor screenshotPreprocessor;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService leaseRenewal;
+    // Identifies this node as the owner of the jobs it queues or takes over
+    private final String owner = UUID.randomUUID().toString();
+
+    // labId -> jobId of jobs this node has queued or is running, so local duplicates skip the lookup
+    private final ConcurrentHashMap<String, String> activeJobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LabGenerationJobServiceImpl(
+            LabGenerationJobRepository jobRepository,
+            ScienceLabService scienceLabService,
+            LabJobProperties properties,
+            ScreenshotPreprocessor screenshotPreprocessor) {
+        this.jobRepository = jobRepository;
+        this.scienceLabService = scienceLabService;
+        this.properties = properties;
+        this.screenshotPreprocessor = screenshotPreprocessor;
+        this.executor = new ThreadPoolExecutor(
+                properties.getWorkers(), properties.getWorkers(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                Thread.ofVirtual().name("lab-job-", 0).factory());
+        long renewEvery = Math.max(1, properties.getLeaseDuration().toMillis() / 3);
+        this.leaseRenewal = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("lab-job-lease").factory());
+        this.leaseRenewal.scheduleAtFixedRate(this::renewLeases, renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+    }
+
+    public LabGenerationJob submit(
+            String labId,
+            String discipline,
+            String topic,
+            String subTopic,
+            String expertise,
+            String simulation,
+            MultipartFile screenshot) {
+
+        // The job document stores the prepared image, so it stays well under the BSON size limit
+        PreparedScreenshot prepared = screenshotPreprocessor.prepare(screenshot);
+
+        Optional<LabGenerationJob> existing = findActive(labId);
+        if (existing.isPresent()) {
+            log.info("Coalesced lab generation request for {} onto job {}", labId, existing.get().getJobId());
+            return existing.get();
+        }
+
+        LabGenerationJob job = new LabGenerationJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setLabId(labId);
+        job.setDiscipline(discipline);
+        job.setTopic(topic);
+        job.setSubTopic(subTopic);
+        job.setExpertise(expertise);
+        job.setSimulation(simulation);
+        job.setScreenshot(prepared.bytes());
+        job.setScreenshotFilename(prepared.filename());
+        job.setScreenshotContentType(prepared.contentType());
+        job.setStatus(LabGenerationJobStatus.QUEUED);
+        job.setActiveLabId(labId);
+        job.setOwner(owner);
+        job.setLeaseUntil(leaseUntil());
+        job.setCreatedAt(Instant.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        LabGenerationJob created;
+        try {
+            created = jobRepository.save(job);
+        } catch (DuplicateKeyException e) {
+            // Another request, here or on another node, created the active job for this lab first
+            LabGenerationJob winner = jobRepository.findFirstByLabIdAndStatusIn(labId, ACTIVE).orElseThrow(() -> e);
+            log.info("Coalesced lab generation request for {} onto job {}", labId, winner.getJobId());
+            return winner;
+        }
+        activeJobs.put(labId, created.getJobId());
+        enqueue(created);
+        return created;
+    }
+
+    public Optional<LabGenerationJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobs() {
+        if (!properties.isRecoverOnStartup()) {
+            return;
+        }
+        // Runs off the startup thread so an unreachable Mongo does not block the application
+        Thread.ofVirtual().name("lab-job-recovery").start(() -> {
+            try {
+                // Jobs another node still holds keep their lease and are left to it
+                List<LabGenerationJob> expired = jobRepository.takeOverExpired(owner, Instant.now(), leaseUntil());
+                for (LabGenerationJob job : expired) {
+                    activeJobs.put(job.getLabId(), job.getJobId());
+                    log.info("Recovering lab generation job {} for {}", job.getJobId(), job.getLabId());
+                    enqueue(job);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Unable to recover lab generation jobs", e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        leaseRenewal.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // Jobs this node runs are found without a query; others, e.g. from another node, only through Mongo
+    private Optional<LabGenerationJob> findActive(String labId) {
+        String jobId = activeJobs.get(labId);
+        if (jobId != null) {
+            Optional<LabGenerationJob> local = jobRepository.findById(jobId).filter(job -> ACTIVE.contains(job.getStatus()));
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+        return jobRepository.findFirstByLabIdAndStatusIn(labId, ACTIVE);
+    }
+
+    private void renewLeases() {
+        try {
+            jobRepository.renewLeases(owner, List.copyOf(activeJobs.values()), leaseUntil());
+        } catch (RuntimeException e) {
+            log.warn("Could not renew lab generation job leases: {}", e.getMessage());
+        }
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plus(properties.getLeaseDuration());
+    }
+
+    private void enqueue(LabGenerationJob job) {
+        try {
+            executor.execute(() -> run(job.getJobId()));
+        } catch (RejectedExecutionException e) {
+            fail(job, "Lab generation queue is full");
+            throw new LlmUnavailableException("Lab generation queue is full, please retry");
+        }
+    }
+
+    private void run(String jobId) {
+        // Only the owner moves the job from QUEUED to RUNNING, in one atomic update
+        LabGenerationJob job = jobRepository.claim(jobId, owner, leaseUntil()).orElse(null);
+        if (job == null) {
+            log.info("Lab generation job {} is no longer held by this node", jobId);
+            activeJobs.values().remove(jobId);
+            return;
+        }
+        String error = GENERATION_FAILED;
+        boolean done = false;
+        try {
+            ScienceLab lab = scienceLabService.createLab(
+                    job.getLabId(),
+                    job.getDiscipline(),
+                    job.getTopic(),
+                    job.getSubTopic(),
+                    job.getExpertise(),
+                    job.getSimulation(),
+                    job.getScreenshot(),
+                    job.getScreenshotFilename(),
+                    job.getScreenshotContentType());
+
+            job.setStatus(LabGenerationJobStatus.DONE);
+            job.setActiveLabId(null);
+            job.setLab(lab);
+            // The screenshot is only needed until the lab exists
+            job.setScreenshot(null);
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+            done = true;
+        } catch (RuntimeException e) {
+            log.error("Lab generation job {} failed", jobId, e);
+            error = errorMessage(e);
+        } finally {
+            // Errors included, so a job never stays RUNNING and holding its lab
+            if (!done) {
+                fail(job, error);
+            }
+            activeJobs.remove(job.getLabId(), jobId);
+        }
+    }
+
+    // Only the status reason is reported on the job; upstream and database messages stay in the log
+    private static String errorMessage(RuntimeException e) {
+        if (e instanceof ResponseStatusException statusException && statusException.getReason() != null) {
+            return statusException.getReason();
+        }
+        return GENERATION_FAILED;
+    }
+
+    private void fail(LabGenerationJob job, String error) {
+        try {
+            job.setStatus(LabGenerationJobStatus.FAILED);
+            job.setActiveLabId(null);
+            job.setError(error);
+            job.setScreenshot(null);
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+        } finally {
+            activeJobs.remove(job.getLabId(), job.getJobId());
+        }
+    }
+}
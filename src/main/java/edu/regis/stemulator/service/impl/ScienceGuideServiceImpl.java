@@ -1,66 +1,80 @@
 package edu.regis.stemulator.service.impl;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import reactor.core.publisher.Flux;
+
+import edu.regis.stemulator.cache.GuidanceResponseCache;
+import edu.regis.stemulator.cache.LabCache;
+import edu.regis.stemulator.cache.LabSnapshot;
+import edu.regis.stemulator.config.GuidanceCacheProperties;
+import edu.regis.stemulator.config.GuidanceContextProperties;
+import edu.regis.stemulator.config.LlmProperties;
+import edu.regis.stemulator.config.PromptAuditProperties;
+import edu.regis.stemulator.evidence.CsvEvidence;
+import edu.regis.stemulator.evidence.CsvEvidenceParser;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
+import edu.regis.stemulator.prompt.LabContextSelector;
+import edu.regis.stemulator.prompt.PromptAuditLogger;
+import edu.regis.stemulator.prompt.PromptTemplate;
+import edu.regis.stemulator.prompt.PromptTemplates;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
 import edu.regis.stemulator.request.ScienceGuideRequest;
 import edu.regis.stemulator.response.ScienceGuideResponse;
 import edu.regis.stemulator.service.ScienceGuideService;
+import edu.regis.stemulator.util.Digests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 
 @Service
 public class ScienceGuideServiceImpl implements ScienceGuideService {
 	
-	private final String SCIENCE_GUIDE_PROMPT = """
-			You are a charismatic high school science teacher with a PhD in %s. 
-    		Provide personalized expert guidance to a science lab student as they progress through each part of the science lab. 
-    		Each lab contains 4 parts.
-    		Each part contains a title, lab setup, observations the student should make (3), data the student should document as evidence to support scientific reasoning (1), and predictions the student should make (2).
-    		The student is requesting guidance for part %s.
-    		Take the setup, observations, evidence, predictions and history that the user has submitted for this part of the lab and compare it to Science Lab JSON which describes the overall lesson plan for the lab. 
-    		Use the result of this comparison as a basis for providing expert guidance to the student that furthers their learning.
-    		Return structured data.
-    		
-    		## STUDENT SUBMISSION ##
-    		studentName: %s
-    		labId: %s
-    		partId: %s
-    		labPartTitle: %s
-    		setup: %s
-    		observations: %s
-    		predictions: %s
-    		history: %s
-    		evidence: see CSV FILE(S) section
-    		    		
-    		## SCIENCE LAB JSON ##
-    		```json
-    		%s
-    		```
-    		
-    		## CSV FILE ##
-    		```csv
-    		%s
-    		```
-    		
-            Return structured data.
-            """;
+	private static final String STRUCTURED_RESPONSE = "Return structured data.";
+	private static final String TEXT_RESPONSE = "Return the guidance as plain text, without JSON or code fences.";
 	
 	private final ChatClient chatClient;
-    private ScienceLabRepository labRepository;
-    private final ObjectMapper objectMapper;
+    private final LabCache labCache;
+    private final LlmGateway llmGateway;
+    private final GuidanceResponseCache guidanceCache;
+    private final CsvEvidenceParser evidenceParser;
+    private final PromptTemplates promptTemplates;
+    private final PromptAuditLogger promptAudit;
+    private final LabContextSelector contextSelector;
     
+    // Test-only: collaborators with their default properties, no Mongo behind the guidance cache and a disabled audit logger
     public ScienceGuideServiceImpl(ChatClient.Builder chatClientBuilder, ScienceLabRepository labRepository, ObjectMapper objectMapper) {
+        this(chatClientBuilder,
+                new LabCache(labRepository, objectMapper),
+                new LlmGateway(new LlmProperties(), "default", ObservationRegistry.NOOP, new SimpleMeterRegistry()),
+                new GuidanceResponseCache(new GuidanceCacheProperties(), null, null, new SimpleMeterRegistry()),
+                new CsvEvidenceParser(),
+                new PromptTemplates(),
+                disabledAudit(),
+                new LabContextSelector(new GuidanceContextProperties(), new SimpleMeterRegistry()));
+    }
+    
+    @Autowired
+    public ScienceGuideServiceImpl(ChatClient.Builder chatClientBuilder, LabCache labCache, LlmGateway llmGateway, GuidanceResponseCache guidanceCache, CsvEvidenceParser evidenceParser, PromptTemplates promptTemplates, PromptAuditLogger promptAudit, LabContextSelector contextSelector) {
         this.chatClient = chatClientBuilder.build();
-        this.labRepository= labRepository;
-        this.objectMapper = objectMapper;
+        this.labCache = labCache;
+        this.llmGateway = llmGateway;
+        this.guidanceCache = guidanceCache;
+        this.evidenceParser = evidenceParser;
+        this.promptTemplates = promptTemplates;
+        this.promptAudit = promptAudit;
+        this.contextSelector = contextSelector;
     }
     
     public ScienceGuideResponse getGuidance(
@@ -69,6 +83,80 @@ public class ScienceGuideServiceImpl implements ScienceGuideService {
 			ScienceGuideRequest request,
 			MultipartFile evidence) {
     	
+        return labCache.findSnapshotById(labId).map(snapshot -> {
+            CsvEvidence csvEvidence = evidenceParser.parse(evidence);
+            PromptTemplate template = promptTemplates.get(PromptTemplates.SCIENCE_GUIDE);
+            String scienceLabJson = contextSelector.select(snapshot, partId);
+            String cacheKey = guidanceCache.key(snapshot, partId, request, csvEvidence,
+                    template.getFingerprint() + ':' + Digests.sha256Hex(scienceLabJson));
+            ScienceGuideResponse cached = guidanceCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            
+            String prompt = buildGuidancePrompt(labId, partId, request, csvEvidence, snapshot, STRUCTURED_RESPONSE, template, scienceLabJson);
+                         
+            // Identical prompts arriving together share the first one's completion; the
+            // fingerprint is taken over the rendered prompt so it covers every input
+            ModelRoute route = llmGateway.route(LlmEndpoint.GUIDANCE, prompt);
+            ScienceGuideResponse guidance = llmGateway.call(route, Digests.sha256Hex(prompt), () -> route.apply(chatClient
+                .prompt()
+                .user(u -> u.text(prompt)
+                       // .media(mimeType, textResource)
+                        ))
+                .call()
+                .entity(ScienceGuideResponse.class));
+            
+            // Recorded once for the answer the student gets, not by each hedged attempt
+            guidanceCache.put(cacheKey, labId, partId, guidance);
+            promptAudit.record(LlmEndpoint.GUIDANCE, labId + "/" + partId, prompt, guidance != null ? guidance.getGuidance() : null);
+            return guidance;
+        }).orElseThrow();
+    	
+    }
+    
+    public Flux<String> streamGuidance(
+			String labId, 
+			Integer partId, 
+			ScienceGuideRequest request,
+			MultipartFile evidence) {
+    	
+        return labCache.findSnapshotById(labId).map(snapshot -> {
+            String prompt = buildGuidancePrompt(labId, partId, request, evidenceParser.parse(evidence), snapshot, TEXT_RESPONSE);
+            promptAudit.record(LlmEndpoint.GUIDANCE, labId + "/" + partId, prompt, null);
+            
+            // Tokens are pushed to the student as the model produces them
+            ModelRoute route = llmGateway.route(LlmEndpoint.GUIDANCE, prompt);
+            return llmGateway.stream(route, () -> route.apply(chatClient
+            .prompt()
+            .user(u -> u.text(prompt)))
+            .stream()
+            .content());
+        }).orElseThrow();
+    }
+    
+    String buildGuidancePrompt(
+    		String labId, 
+    		Integer partId, 
+    		ScienceGuideRequest request, 
+    		CsvEvidence evidence, 
+    		LabSnapshot snapshot,
+    		String responseFormat) {
+    	// Only the requested part unless the full document is configured; serialized once per lab load
+    	return buildGuidancePrompt(labId, partId, request, evidence, snapshot, responseFormat,
+    			promptTemplates.get(PromptTemplates.SCIENCE_GUIDE), contextSelector.select(snapshot, partId));
+    }
+    
+    private String buildGuidancePrompt(
+    		String labId, 
+    		Integer partId, 
+    		ScienceGuideRequest request, 
+    		CsvEvidence evidence, 
+    		LabSnapshot snapshot,
+    		String responseFormat,
+    		PromptTemplate template,
+    		String scienceLabJson) {
+    	
     	var studentName = request.getStudentName();
     	List<String> setup = request.getSetup();
     	var observations = request.getObservations();
@@ -88,59 +176,32 @@ public class ScienceGuideServiceImpl implements ScienceGuideService {
     			setup2.add(str);
     		}
     	}
-    	 		
-        return labRepository.findById(labId).map(lab -> {
-            var discipline = lab.getDiscipline();
-            var topic = lab.getTopic();
-            var subTopic = lab.getSubTopic();
-            var labParts = lab.getLabParts();
-            var labPart = labParts.get(partId);
-            var labPartTitle = labPart.getTitle();
-            
-            String scienceLabJson = "";
-			try {
-				scienceLabJson = objectMapper.writeValueAsString(lab);
-			} catch (JsonProcessingException e) {
-				e.printStackTrace();
-			}
-			
-			String cvsFile = null;
-			try {
-				cvsFile = new String(evidence.getBytes(), StandardCharsets.UTF_8);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-            
-            String prompt = String.format(
-	            SCIENCE_GUIDE_PROMPT,
-	            topic,
-	            partId,
-	            studentName,
-	            labId,
-	            partId,
-	            labPartTitle,
-	            setup2,
-	            observations,
-	            predictions,
-	            history,
-	            scienceLabJson,
-	            cvsFile);
-          
-            System.out.println("*****************************************************************************************");
-            System.out.println(prompt);
-            System.out.println("*****************************************************************************************");
-                         
-            ScienceGuideResponse guidance = chatClient
-            .prompt()
-            .user(u -> u.text(prompt)
-                   // .media(mimeType, textResource)
-                    )
-            .call()
-            .entity(ScienceGuideResponse.class);
-            
-            return guidance;
-        }).orElseThrow();
     	
+        var lab = snapshot.getLab();
+        var topic = lab.getTopic();
+        var labParts = lab.getLabParts();
+        var labPart = labParts.get(partId);
+        var labPartTitle = labPart.getTitle();
+		
+		// Header and sampled rows go in the CSV block, row count and column statistics after it
+		String evidenceCsv = evidence != null ? evidence.toCsv() : "";
+		String evidenceStats = evidence != null ? evidence.describe() : "No evidence file was submitted.";
+        
+        Map<String, Object> values = new HashMap<>();
+        values.put("topic", topic);
+        values.put("partId", partId);
+        values.put("responseFormat", responseFormat);
+        values.put("studentName", studentName);
+        values.put("labId", labId);
+        values.put("labPartTitle", labPartTitle);
+        values.put("setup", setup2);
+        values.put("observations", observations);
+        values.put("predictions", predictions);
+        values.put("history", history);
+        values.put("scienceLabJson", scienceLabJson);
+        values.put("evidenceCsv", evidenceCsv);
+        values.put("evidenceStats", evidenceStats);
+        return template.render(values);
     }
 	
 	public ScienceGuideResponse getExplanation(
@@ -158,5 +219,11 @@ public class ScienceGuideServiceImpl implements ScienceGuideService {
 			MultipartFile screenshot) {
 		return null;
 	}
-	
+
+    // Audits nothing and starts no writer thread
+    private static PromptAuditLogger disabledAudit() {
+        PromptAuditProperties properties = new PromptAuditProperties();
+        properties.setEnabled(false);
+        return new PromptAuditLogger(properties, null, new SimpleMeterRegistry());
+    }
 }
@@ -1,58 +1,113 @@
 package edu.regis.stemulator.service.impl;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeType;
 import org.springframework.web.multipart.MultipartFile;
 
+import edu.regis.stemulator.cache.LabCache;
+import edu.regis.stemulator.config.LlmProperties;
+import edu.regis.stemulator.config.PromptAuditProperties;
+import edu.regis.stemulator.config.ScreenshotProperties;
+import edu.regis.stemulator.image.PreparedScreenshot;
+import edu.regis.stemulator.image.ScreenshotPreprocessor;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
+import edu.regis.stemulator.model.LabSummary;
 import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.prompt.PromptAuditLogger;
+import edu.regis.stemulator.prompt.PromptTemplates;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.response.LabSearchPage;
+import edu.regis.stemulator.response.LabSummaryPage;
 import edu.regis.stemulator.service.ScienceLabService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 
 @Service
 public class ScienceLabServiceImpl implements ScienceLabService {
 	
-	private final String SCIENCE_LAB_PROMPT = """
-    		You are a quarky and charismatic high school science teacher with a PhD in %s. 
-            Create a detailed lesson plan for a virtual science lab that's built around the %s Lab Simulation app. 
-            The lab's lesson plan should be in alignment with Next Generation Science Standards (NGSS). 
-            The lab's lesson plan should use a case-study method for each part and encourage critical thinking and scientific investigation.
-            The science labId is %s, the science discipline is %s, the topic is %s and the subTopic is %s.
-            Learning goals should consist of 1 big idea, 4 objectives and 4 success criteria.
-            The lab should contain 4 parts that correspond to the 4 learning objectives. 
-            Each part should be a learning experience designed to achieve the designated learning objective. 
-            Each part should contains a title, detailed lab setup instructions, observations the student should make (3), data the student should document as evidence to support scientific reasoning (1), and predictions the student should make (2). 
-            Observations and predictions should be formulated as probing questions.
-            Evidence should be in the form of a command for the student to collect data in a csv file.
-            A screenshot of the simulation app's user interface is attached.
-            The simulation app contains a number of lab controls that the student can modify in order to change the course of the lab simulation. 
-            Only one student is attending the virtual science lab.
-            Return structured data.
-            """;
+	private static final int MAX_SUMMARY_PAGE_SIZE = 100;
 	
 	private final ChatClient chatClient;
-    private ScienceLabRepository labRepository;
+    private final LabCache labCache;
+    private final LlmGateway llmGateway;
+    private final PromptTemplates promptTemplates;
+    private final PromptAuditLogger promptAudit;
+    private final ScreenshotPreprocessor screenshotPreprocessor;
 
+    // Test-only: collaborators with their default properties and a disabled audit logger
     public ScienceLabServiceImpl(ChatClient.Builder chatClientBuilder, ScienceLabRepository labRepository) {
+        this(chatClientBuilder,
+                new LabCache(labRepository),
+                new LlmGateway(new LlmProperties(), "default", ObservationRegistry.NOOP, new SimpleMeterRegistry()),
+                new PromptTemplates(),
+                disabledAudit(),
+                new ScreenshotPreprocessor(new ScreenshotProperties(), new SimpleMeterRegistry()));
+    }
+
+    @Autowired
+    public ScienceLabServiceImpl(ChatClient.Builder chatClientBuilder, LabCache labCache, LlmGateway llmGateway, PromptTemplates promptTemplates, PromptAuditLogger promptAudit,
+            ScreenshotPreprocessor screenshotPreprocessor) {
         this.chatClient = chatClientBuilder.build();
-        this.labRepository= labRepository;
+        this.labCache = labCache;
+        this.llmGateway = llmGateway;
+        this.promptTemplates = promptTemplates;
+        this.promptAudit = promptAudit;
+        this.screenshotPreprocessor = screenshotPreprocessor;
     }
 	
     public ScienceLab getLab(String labId) {
-    	ScienceLab scienceLab = labRepository.findById(labId)
+    	ScienceLab scienceLab = labCache.findById(labId)
         .map(lab -> lab)
         .orElseGet(() -> null);
 		return scienceLab;
     }
     
     public List<ScienceLab> getLabList() {
-    	return labRepository.findAll();
+    	return labCache.findAll();
+    }
+    
+    public LabSummaryPage getLabSummaries(String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SUMMARY_PAGE_SIZE));
+        // One extra row tells whether another page follows
+        List<LabSummary> summaries = labCache.findSummaries(decodeCursor(cursor), pageSize + 1);
+        if (summaries.size() <= pageSize) {
+            return new LabSummaryPage(summaries, null);
+        }
+        List<LabSummary> page = List.copyOf(summaries.subList(0, pageSize));
+        return new LabSummaryPage(page, encodeCursor(page.get(pageSize - 1).getLabId()));
+    }
+    
+    public LabSearchPage searchLabs(String discipline, String topic, String subTopic, String text, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SUMMARY_PAGE_SIZE));
+        Page<LabSummary> result = labCache.searchSummaries(
+                discipline, topic, subTopic, text, PageRequest.of(Math.max(0, page), pageSize));
+        return new LabSearchPage(result.getContent(), result.getNumber(), result.getSize(),
+                result.getTotalElements(), result.getTotalPages());
+    }
+    
+    // Cursors are opaque to clients: the last labId of the previous page, base64url encoded
+    static String encodeCursor(String labId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(labId.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
     }
 	
 	public ScienceLab createLab(
@@ -64,47 +119,56 @@ public class ScienceLabServiceImpl implements ScienceLabService {
 			String simulation, 
 			MultipartFile screenshot) {
 		
-		// Convert MultipartFile -> Resource
-        byte[] imageBytes = null;
-		try {
-			imageBytes = screenshot.getBytes();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-        var imageResource = new ByteArrayResource(imageBytes) {
-            @Override public String getFilename() { return screenshot.getOriginalFilename(); }
+		// Downscaled and re-encoded so the model is not sent a full-resolution upload
+		PreparedScreenshot prepared = screenshotPreprocessor.prepare(screenshot);
+		return createLab(labId, discipline, topic, subTopic, expertise, simulation, 
+				prepared.bytes(), prepared.filename(), prepared.contentType());
+	}
+	
+	public ScienceLab createLab(
+			String labId, 
+			String discipline, 
+			String topic, 
+			String subTopic, 
+			String expertise, 
+			String simulation, 
+			byte[] screenshot,
+			String screenshotFilename,
+			String screenshotContentType) {
+		
+        var imageResource = new ByteArrayResource(screenshot) {
+            @Override public String getFilename() { return screenshotFilename; }
         };
 
         // Use the file’s content-type if present; otherwise default to image/jpeg
-        String contentType = (screenshot.getContentType() != null) ? screenshot.getContentType() : "image/jpeg";
+        String contentType = (screenshotContentType != null) ? screenshotContentType : "image/jpeg";
         MimeType mimeType = MimeType.valueOf(contentType);
         
-        String prompt = String.format(
-        		SCIENCE_LAB_PROMPT,
-                expertise,
-                simulation,
-                labId,
-                discipline,
-                topic,
-                subTopic);
+        String prompt = promptTemplates.get(PromptTemplates.SCIENCE_LAB).render(Map.of(
+                "expertise", expertise,
+                "simulation", simulation,
+                "labId", labId,
+                "discipline", discipline,
+                "topic", topic,
+                "subTopic", subTopic));
         
-        System.out.println("*****************************************************************************************");
-        System.out.println(prompt);
-        System.out.println("*****************************************************************************************");
-        
-                            
-        ScienceLab lab = chatClient
+        // The CREATE_LAB route can set a larger model or temperature 0; options are only applied when it does
+        ModelRoute route = llmGateway.route(LlmEndpoint.CREATE_LAB, prompt);
+        ScienceLab lab = llmGateway.call(route, () -> route.apply(chatClient
                 .prompt()
                 .user(u -> u.text(prompt)
-                        .media(mimeType, imageResource))
-// causes unit test failure due to null pointer exception                
-//                .options(OpenAiChatOptions.builder()
-//                        .temperature(0.0)
-//                        .build())
+                        .media(mimeType, imageResource)))
                 .call()
-                .entity(ScienceLab.class);
+                .entity(ScienceLab.class));
+        promptAudit.record(LlmEndpoint.CREATE_LAB, labId, prompt, lab);
         
-        return labRepository.save(lab);
+        return labCache.save(lab);
 	}
 
+    // Audits nothing and starts no writer thread
+    private static PromptAuditLogger disabledAudit() {
+        PromptAuditProperties properties = new PromptAuditProperties();
+        properties.setEnabled(false);
+        return new PromptAuditLogger(properties, null, new SimpleMeterRegistry());
+    }
 }
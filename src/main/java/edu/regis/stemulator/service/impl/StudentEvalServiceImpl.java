@@ -1,46 +1,148 @@
 package edu.regis.stemulator.service.impl;
 
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import edu.regis.stemulator.config.StudentEvalBatchProperties;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
 import edu.regis.stemulator.model.Message;
 import edu.regis.stemulator.model.StudentEvalResult;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.request.StudentEvalBatchRequest;
+import edu.regis.stemulator.response.StudentEvalBatchItem;
 import edu.regis.stemulator.service.StudentEvalService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+@Slf4j
 @Service
-public class StudentEvalServiceImpl implements StudentEvalService {
+public class StudentEvalServiceImpl implements StudentEvalService, DisposableBean {
 
 	private final ChatClient chatClient;
     private ScienceLabRepository labRepository;
     private final ObjectMapper objectMapper;
+    private final LlmGateway llmGateway;
+    private final StudentEvalBatchProperties batchProperties;
+    // Each batch evaluation blocks on the model, so it gets its own virtual thread
+    private final Scheduler batchScheduler;
     
-    public StudentEvalServiceImpl(ChatClient.Builder chatClientBuilder, ScienceLabRepository labRepository, ObjectMapper objectMapper) {
+    public StudentEvalServiceImpl(ChatClient.Builder chatClientBuilder, ScienceLabRepository labRepository, ObjectMapper objectMapper, LlmGateway llmGateway) {
+        this(chatClientBuilder, labRepository, objectMapper, llmGateway, new StudentEvalBatchProperties());
+    }
+    
+    @Autowired
+    public StudentEvalServiceImpl(ChatClient.Builder chatClientBuilder, ScienceLabRepository labRepository, ObjectMapper objectMapper, LlmGateway llmGateway, StudentEvalBatchProperties batchProperties) {
         this.chatClient = chatClientBuilder.build();
         this.labRepository= labRepository;
         this.objectMapper = objectMapper;
+        this.llmGateway = llmGateway;
+        this.batchProperties = batchProperties;
+        this.batchScheduler = Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "student-eval-batch");
     }
     
 	public StudentEvalResult getStudentEval(List<Message> messages) {
+		return evaluate(LlmEndpoint.STUDENT_EVAL, messages);
+	}
+	
+	// Batch evaluations go through their own endpoint so they queue behind interactive calls. The transcript
+	// is what is being graded, so it is sent whole rather than compacted; long ones are routed by size instead
+	StudentEvalResult evaluate(LlmEndpoint endpoint, List<Message> messages) {
     	List<org.springframework.ai.chat.messages.Message> springMessages = convertMessages(messages);
+    	ModelRoute route = llmGateway.route(endpoint, messages);
 		
-    	StudentEvalResult response = chatClient.prompt()
-                .messages(springMessages)
+    	StudentEvalResult response = llmGateway.call(route, () -> route.apply(chatClient.prompt()
+                .messages(springMessages))
                 .call()
-                .entity(StudentEvalResult.class);
+                .entity(StudentEvalResult.class));
 		
 		return response;
     }
 	
-	private List<org.springframework.ai.chat.messages.Message> convertMessages(List<Message> input) {
+	public Flux<StudentEvalBatchItem> evaluateBatch(List<StudentEvalBatchRequest.Item> items) {
+		if (items != null && items.size() > batchProperties.getMaxItems()) {
+			throw new IllegalArgumentException("A batch holds at most " + batchProperties.getMaxItems() + " transcripts");
+		}
+		List<StudentEvalBatchRequest.Item> batch = items != null ? items : List.of();
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		
+		// Cancelling the stream (e.g. the teacher closed the page) cancels evaluations still running
+		return Flux.range(0, batch.size())
+				.flatMap(index -> evaluateItem(index, batch.get(index)), Math.max(1, batchProperties.getMaxParallelism()))
+				.doOnNext(item -> (StudentEvalBatchItem.OK.equals(item.getStatus()) ? succeeded : failed).incrementAndGet())
+				.concatWith(Mono.fromSupplier(() -> StudentEvalBatchItem.summary(succeeded.get(), failed.get())));
+	}
+	
+	private Mono<StudentEvalBatchItem> evaluateItem(int index, StudentEvalBatchRequest.Item item) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			AtomicBoolean cancelled = new AtomicBoolean();
+			return Mono.fromCallable(() -> {
+						try {
+							StudentEvalResult result = evaluate(LlmEndpoint.STUDENT_EVAL_BATCH, item.getMessages());
+							if (result == null) {
+								throw new IllegalStateException("No evaluation was returned");
+							}
+							return result;
+						} catch (Exception e) {
+							// Cancelling interrupts this thread; what it then throws has no subscriber left
+							if (cancelled.get()) {
+								return null;
+							}
+							throw e;
+						}
+					})
+					.subscribeOn(batchScheduler)
+					.doOnCancel(() -> cancelled.set(true))
+					.timeout(batchProperties.getItemTimeout())
+					.map(result -> new StudentEvalBatchItem(StudentEvalBatchItem.OK, index, item.getId(), result, null, elapsedMillis(start), null, null))
+					.onErrorResume(e -> Mono.just(e instanceof TimeoutException
+							? new StudentEvalBatchItem(StudentEvalBatchItem.TIMED_OUT, index, item.getId(), null,
+									"No result within " + batchProperties.getItemTimeout(), elapsedMillis(start), null, null)
+							: new StudentEvalBatchItem(StudentEvalBatchItem.FAILED, index, item.getId(), null,
+									errorMessage(item, e), elapsedMillis(start), null, null)));
+		});
+	}
+	
+	// Only the status reason is streamed to the teacher; upstream and parsing messages stay in the log
+	private static String errorMessage(StudentEvalBatchRequest.Item item, Throwable e) {
+		log.warn("Batch evaluation of {} failed", item.getId(), e);
+		if (e instanceof ResponseStatusException statusException && statusException.getReason() != null) {
+			return statusException.getReason();
+		}
+		return "Evaluation failed, please try again";
+	}
+	
+	@Override
+	public void destroy() {
+		batchScheduler.dispose();
+	}
+	
+	private static long elapsedMillis(long startNanos) {
+		return (System.nanoTime() - startNanos) / 1_000_000;
+	}
+	
+	List<org.springframework.ai.chat.messages.Message> convertMessages(List<Message> input) {
 
 	    return input.stream()
 	            .map(msg -> switch (msg.getRole().toLowerCase()) {
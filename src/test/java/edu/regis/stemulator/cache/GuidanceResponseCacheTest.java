@@ -0,0 +1,145 @@
+package edu.regis.stemulator.cache;
+
+import edu.regis.stemulator.config.GuidanceCacheProperties;
+import edu.regis.stemulator.evidence.CsvEvidence;
+import edu.regis.stemulator.evidence.CsvEvidenceParser;
+import edu.regis.stemulator.model.CachedGuidance;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.CachedGuidanceRepository;
+import edu.regis.stemulator.request.ScienceGuideRequest;
+import edu.regis.stemulator.response.ScienceGuideResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GuidanceResponseCacheTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private CachedGuidanceRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private GuidanceResponseCache cache;
+    private LabSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CachedGuidanceRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new GuidanceResponseCache(new GuidanceCacheProperties(), repository, null, meterRegistry, clock);
+
+        ScienceLab lab = new ScienceLab();
+        lab.setLabId("LAB-123");
+        lab.setTopic("Natural Selection");
+        snapshot = LabSnapshot.of(lab, new ObjectMapper());
+    }
+
+    @Test
+    void key_isStableAcrossEquivalentSubmissions() {
+        // Arrange
+        ScienceGuideRequest first = request("Alex", List.of("wolves = some", "Season = Winter"),
+                List.of("More white rabbits survive.", "Brown  rabbits decrease"));
+        ScienceGuideRequest second = request(" Alex ", List.of("season=winter", "wolves=some"),
+                List.of("brown rabbits decrease", "more white rabbits survive"));
+
+        // Act
+        String firstKey = cache.key(snapshot, 1, first, csv("generation,brown\r\n1,50\r\n"), "prompt-v1");
+        String secondKey = cache.key(snapshot, 1, second, csv("generation,brown\n1,50\n"), "prompt-v1");
+
+        // Assert
+        assertEquals(firstKey, secondKey);
+        assertNotEquals(firstKey, cache.key(snapshot, 2, first, csv("generation,brown\n1,50\n"), "prompt-v1"));
+        assertNotEquals(firstKey, cache.key(snapshot, 1, first, csv("generation,brown\n1,51\n"), "prompt-v1"));
+        // An edited template or another lab context retires the cached response
+        assertNotEquals(firstKey, cache.key(snapshot, 1, first, csv("generation,brown\n1,50\n"), "prompt-v2"));
+    }
+
+    @Test
+    void key_differsPerStudent_forOtherwiseIdenticalSubmissions() {
+        // Arrange
+        List<String> setup = List.of("wolves=some", "season=winter");
+        List<String> observations = List.of("More white rabbits survive.");
+
+        // Act
+        String alex = cache.key(snapshot, 1, request("Alex", setup, observations), null, "prompt-v1");
+        String sam = cache.key(snapshot, 1, request("Sam", setup, observations), null, "prompt-v1");
+        cache.put(alex, "LAB-123", 1, new ScienceGuideResponse("Great work, Alex."));
+
+        // Assert: Sam is not served guidance written for Alex
+        assertNotEquals(alex, sam);
+        when(repository.findById(sam)).thenReturn(Optional.empty());
+        assertNull(cache.get(sam));
+    }
+
+    @Test
+    void put_thenGet_servesFromMemory_andPersists() {
+        String key = cache.key(snapshot, 1, request("Alex", List.of("wolves=some"), List.of()), null, "prompt-v1");
+        when(repository.findById(key)).thenReturn(Optional.empty());
+
+        assertNull(cache.get(key));
+        cache.put(key, "LAB-123", 1, new ScienceGuideResponse("Look at the white rabbits."));
+
+        assertEquals("Look at the white rabbits.", cache.get(key).getGuidance());
+        verify(repository).save(argThat(saved ->
+                saved.getKey().equals(key) && saved.getExpireAt().equals(clock.instant().plus(new GuidanceCacheProperties().getTimeToLive()))));
+        assertEquals(1.0, meterRegistry.get("stemulator.guidance.cache").tag("result", "miss").counter().count());
+        assertEquals(1.0, meterRegistry.get("stemulator.guidance.cache").tag("tier", "memory").counter().count());
+    }
+
+    @Test
+    void get_fallsBackToMongo_andIgnoresExpiredDocuments() {
+        CachedGuidance live = stored("live", clock.instant().plusSeconds(60));
+        CachedGuidance expired = stored("expired", clock.instant().minusSeconds(60));
+        when(repository.findById("live")).thenReturn(Optional.of(live));
+        when(repository.findById("expired")).thenReturn(Optional.of(expired));
+
+        assertEquals("stored guidance", cache.get("live").getGuidance());
+        assertNull(cache.get("expired"));
+        assertEquals(1.0, meterRegistry.get("stemulator.guidance.cache").tag("tier", "mongo").counter().count());
+    }
+
+    @Test
+    void mongoFailures_doNotFailTheRequest() {
+        when(repository.findById(any())).thenThrow(new IllegalStateException("mongo down"));
+        when(repository.save(any())).thenThrow(new IllegalStateException("mongo down"));
+
+        assertNull(cache.get("k"));
+        cache.put("k", "LAB-123", 1, new ScienceGuideResponse("guidance"));
+        assertEquals("guidance", cache.get("k").getGuidance());
+    }
+
+    private static ScienceGuideRequest request(String studentName, List<String> setup, List<String> observations) {
+        ScienceGuideRequest request = new ScienceGuideRequest();
+        request.setStudentName(studentName);
+        request.setSetup(setup);
+        request.setObservations(observations);
+        request.setPredictions(List.of("White fur frequency will rise"));
+        return request;
+    }
+
+    private static CsvEvidence csv(String content) {
+        return new CsvEvidenceParser().parse(
+                new MockMultipartFile("evidence", "evidence.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static CachedGuidance stored(String key, Instant expireAt) {
+        CachedGuidance cached = new CachedGuidance();
+        cached.setKey(key);
+        cached.setGuidance("stored guidance");
+        cached.setExpireAt(expireAt);
+        return cached;
+    }
+}
@@ -0,0 +1,190 @@
+package edu.regis.stemulator.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.regis.stemulator.config.LabCacheProperties;
+import edu.regis.stemulator.model.LabPart;
+import edu.regis.stemulator.model.LearningGoals;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LabCacheTest {
+
+    private ScienceLabRepository labRepository;
+    private LabCache labCache;
+
+    @BeforeEach
+    void setUp() {
+        labRepository = mock(ScienceLabRepository.class);
+        labCache = new LabCache(labRepository, new ObjectMapper(), new LabCacheProperties());
+    }
+
+    @Test
+    void findById_readsMongoOnce_thenServesFromMemory() {
+        // Arrange
+        ScienceLab lab = lab("LAB-123");
+        when(labRepository.findById("LAB-123")).thenReturn(Optional.of(lab));
+
+        // Act
+        Optional<ScienceLab> first = labCache.findById("LAB-123");
+        Optional<ScienceLab> second = labCache.findById("LAB-123");
+
+        // Assert
+        assertSame(lab, first.orElseThrow());
+        assertSame(lab, second.orElseThrow());
+        verify(labRepository, times(1)).findById("LAB-123");
+    }
+
+    @Test
+    void findSnapshotById_reusesSerializedJson_andExposesPartContext() {
+        // Arrange
+        ScienceLab lab = lab("LAB-123");
+        LearningGoals goals = new LearningGoals();
+        goals.setBigIdea("Big Idea");
+        lab.setLearningGoals(goals);
+        LabPart p1 = new LabPart();
+        p1.setTitle("Part 1 - Setup");
+        LabPart p2 = new LabPart();
+        p2.setTitle("Part 2 - Experiment");
+        lab.setLabParts(List.of(p1, p2));
+        when(labRepository.findById("LAB-123")).thenReturn(Optional.of(lab));
+
+        // Act
+        LabSnapshot first = labCache.findSnapshotById("LAB-123").orElseThrow();
+        LabSnapshot second = labCache.findSnapshotById("LAB-123").orElseThrow();
+
+        // Assert: same serialized instance, stable hash
+        assertSame(first.getJson(), second.getJson());
+        assertEquals(64, first.getHash().length());
+        assertTrue(first.getJson().contains("Part 1 - Setup"));
+
+        // Assert: the part context only carries the requested part plus its goals, and is built once
+        String context = first.getPartContextJson(1, 200);
+        assertTrue(context.contains("Part 2 - Experiment"));
+        assertTrue(context.contains("Big Idea"));
+        assertFalse(context.contains("Part 1 - Setup"));
+        assertSame(context, second.getPartContextJson(1, 200));
+    }
+
+    @Test
+    void findById_doesNotCacheMissingLabs() {
+        when(labRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertTrue(labCache.findById("missing").isEmpty());
+        assertTrue(labCache.findById("missing").isEmpty());
+
+        verify(labRepository, times(2)).findById("missing");
+    }
+
+    @Test
+    void save_populatesCache_andInvalidatesLabList() {
+        // Arrange
+        ScienceLab existing = lab("LAB-1");
+        ScienceLab created = lab("LAB-2");
+        when(labRepository.findAll()).thenReturn(List.of(existing));
+        when(labRepository.save(any(ScienceLab.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals(1, labCache.findAll().size());
+
+        // Act
+        labCache.save(created);
+
+        // Assert: the new lab is served without a read, the list is reloaded
+        assertSame(created, labCache.findById("LAB-2").orElseThrow());
+        verify(labRepository, never()).findById("LAB-2");
+
+        when(labRepository.findAll()).thenReturn(List.of(existing, created));
+        assertEquals(2, labCache.findAll().size());
+        verify(labRepository, times(2)).findAll();
+    }
+
+    @Test
+    void findAll_reloadsList_afterTimeToLive() {
+        // Arrange
+        LabCacheProperties properties = new LabCacheProperties();
+        properties.setTimeToLive(Duration.ofMinutes(10));
+        MutableClock clock = new MutableClock();
+        labCache = new LabCache(labRepository, new ObjectMapper(), properties, clock);
+        when(labRepository.findAll()).thenReturn(List.of(lab("LAB-1")));
+        labCache.findAll();
+
+        // Act: a lab written by another node shows up once the list expires
+        when(labRepository.findAll()).thenReturn(List.of(lab("LAB-1"), lab("LAB-2")));
+        int beforeExpiry = labCache.findAll().size();
+        clock.advance(Duration.ofMinutes(10));
+        int afterExpiry = labCache.findAll().size();
+
+        // Assert
+        assertEquals(1, beforeExpiry);
+        assertEquals(2, afterExpiry);
+        verify(labRepository, times(2)).findAll();
+    }
+
+    @Test
+    void evict_forcesReload() {
+        when(labRepository.findById("LAB-123")).thenReturn(Optional.of(lab("LAB-123")));
+
+        labCache.findById("LAB-123");
+        labCache.evict("LAB-123");
+        labCache.findById("LAB-123");
+
+        verify(labRepository, times(2)).findById("LAB-123");
+    }
+
+    @Test
+    void disabledCache_alwaysReadsThrough() {
+        LabCacheProperties properties = new LabCacheProperties();
+        properties.setEnabled(false);
+        labCache = new LabCache(labRepository, new ObjectMapper(), properties);
+        when(labRepository.findById("LAB-123")).thenReturn(Optional.of(lab("LAB-123")));
+
+        labCache.findById("LAB-123");
+        labCache.findById("LAB-123");
+
+        verify(labRepository, times(2)).findById("LAB-123");
+    }
+
+    private static ScienceLab lab(String labId) {
+        ScienceLab lab = new ScienceLab();
+        lab.setLabId(labId);
+        lab.setDiscipline("Biology");
+        lab.setTopic("Natural Selection");
+        return lab;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package edu.regis.stemulator.controller;
+
+import edu.regis.stemulator.service.ChatCompletionsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ChatCompletionsControllerTest {
+
+    private ChatCompletionsService chatCompletionsService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        chatCompletionsService = mock(ChatCompletionsService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ChatCompletionsController(chatCompletionsService)).build();
+    }
+
+    @Test
+    void streamMessages_emitsOpenAiCompatibleChunks_andDoneMarker() throws Exception {
+        // Arrange
+        when(chatCompletionsService.streamMessages(anyList(), any())).thenReturn(Flux.just("Hel", "lo"));
+
+        String json = "{\"messages\":[{\"role\":\"user\",\"content\":\"Say hello.\"}]}";
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/stemulator/v1/chat/completions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"object\":\"chat.completion.chunk\"")))
+                .andExpect(content().string(containsString("\"delta\":{\"role\":\"assistant\",\"content\":\"\"}")))
+                .andExpect(content().string(containsString("\"delta\":{\"content\":\"Hel\"}")))
+                .andExpect(content().string(containsString("\"delta\":{\"content\":\"lo\"}")))
+                .andExpect(content().string(containsString("\"finish_reason\":\"stop\"")))
+                .andExpect(content().string(endsWith("data:[DONE]\n\n")));
+
+        verify(chatCompletionsService).streamMessages(anyList(), any());
+        verifyNoMoreInteractions(chatCompletionsService);
+    }
+
+    @Test
+    void postMessages_streamsChunks_whenRequestBodyAsksForStream() throws Exception {
+        // Arrange
+        when(chatCompletionsService.streamMessages(anyList(), any())).thenReturn(Flux.just("Hi"));
+
+        String json = "{\"stream\":true,\"messages\":[{\"role\":\"user\",\"content\":\"Say hi.\"}]}";
+
+        // Act: OpenAI clients send "stream": true but accept application/json
+        MvcResult result = mockMvc.perform(post("/stemulator/v1/chat/completions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString(MediaType.TEXT_EVENT_STREAM_VALUE)))
+                .andExpect(content().string(containsString("\"delta\":{\"content\":\"Hi\"}")))
+                .andExpect(content().string(endsWith("data:[DONE]\n\n")));
+
+        verify(chatCompletionsService).streamMessages(anyList(), any());
+        verifyNoMoreInteractions(chatCompletionsService);
+    }
+}
@@ -0,0 +1,84 @@
+package edu.regis.stemulator.controller;
+
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.request.ScienceGuideRequest;
+import edu.regis.stemulator.service.ScienceGuideService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ScienceGuideControllerTest {
+
+    private ScienceGuideService scienceGuideService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        scienceGuideService = mock(ScienceGuideService.class);
+        ChatClient.Builder chatClientBuilder = mock(ChatClient.Builder.class);
+        ScienceGuideController controller = new ScienceGuideController(
+                scienceGuideService, chatClientBuilder, mock(ScienceLabRepository.class), new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void streamGuidance_emitsTokenEvents_thenFinalGuidanceEvent() throws Exception {
+        // Arrange
+        when(scienceGuideService.streamGuidance(eq("LAB-123"), eq(1), any(ScienceGuideRequest.class), any()))
+                .thenReturn(Flux.just("Great ", "observations!"));
+
+        MockMultipartFile request = new MockMultipartFile(
+                "scienceGuideRequest", "", "application/json",
+                "{\"studentName\":\"Alex Student\",\"setup\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        MvcResult result = mockMvc.perform(multipart("/stemulator/v1/guides/lab/LAB-123/part/1/stream").file(request))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert: tokens first, structured response last
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("event:token\ndata:Great \n")))
+                .andExpect(content().string(containsString("event:token\ndata:observations!\n")))
+                .andExpect(content().string(containsString("event:guidance\ndata:{\"guidance\":\"Great observations!\"}")));
+    }
+
+    @Test
+    void streamGuidance_sendsGenericErrorEvent_withoutInternalDetails() throws Exception {
+        // Arrange
+        when(scienceGuideService.streamGuidance(eq("LAB-123"), eq(1), any(ScienceGuideRequest.class), any()))
+                .thenReturn(Flux.concat(Flux.just("Great "), Flux.error(new IllegalStateException("Timed out after 30000 ms on mongo-0:27017"))));
+
+        MockMultipartFile request = new MockMultipartFile(
+                "scienceGuideRequest", "", "application/json",
+                "{\"studentName\":\"Alex Student\",\"setup\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        MvcResult result = mockMvc.perform(multipart("/stemulator/v1/guides/lab/LAB-123/part/1/stream").file(request))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().string(containsString("event:error\ndata:Guidance failed, please try again")))
+                .andExpect(content().string(not(containsString("mongo-0"))));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.regis.stemulator.controller;
+
+import edu.regis.stemulator.model.LabSummary;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.response.LabSearchPage;
+import edu.regis.stemulator.response.LabSummaryPage;
+import edu.regis.stemulator.service.LabGenerationJobService;
+import edu.regis.stemulator.service.ScienceLabService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ScienceLabControllerTest {
+
+    private ScienceLabService scienceLabService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        scienceLabService = mock(ScienceLabService.class);
+        ScienceLabController controller = new ScienceLabController(
+                scienceLabService, mock(LabGenerationJobService.class), mock(ScienceLabRepository.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void getLabSummaries_returnsPageWithEtag_andNotModifiedWhenUnchanged() throws Exception {
+        // Arrange
+        LabSummaryPage page = new LabSummaryPage(
+                List.of(new LabSummary("LAB-123", "Biology", "Natural Selection", "Mutations", "Rabbits and wolves")),
+                "TEFCLTEyMw");
+        when(scienceLabService.getLabSummaries(null, 1)).thenReturn(page);
+
+        // Act
+        String etag = mockMvc.perform(get("/stemulator/v1/labs/summaries").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.labs[0].labId").value("LAB-123"))
+                .andExpect(jsonPath("$.labs[0].labParts").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("TEFCLTEyMw"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Assert
+        mockMvc.perform(get("/stemulator/v1/labs/summaries").param("size", "1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getLabSummaries_rejectsMalformedCursor() throws Exception {
+        when(scienceLabService.getLabSummaries("%%%", 20)).thenThrow(new IllegalArgumentException("bad cursor"));
+
+        mockMvc.perform(get("/stemulator/v1/labs/summaries").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchLabs_passesFiltersAndPaging() throws Exception {
+        // Arrange
+        LabSearchPage page = new LabSearchPage(
+                List.of(new LabSummary("LAB-123", "Biology", "Natural Selection", "Mutations", "Rabbits and wolves")),
+                1, 10, 11, 2);
+        when(scienceLabService.searchLabs("Biology", "Natural Selection", null, "camouflage", 1, 10)).thenReturn(page);
+
+        // Act + Assert
+        mockMvc.perform(get("/stemulator/v1/labs/search")
+                        .param("discipline", "Biology")
+                        .param("topic", "Natural Selection")
+                        .param("q", "camouflage")
+                        .param("page", "1")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.labs[0].labId").value("LAB-123"))
+                .andExpect(jsonPath("$.totalElements").value(11))
+                .andExpect(jsonPath("$.totalPages").value(2));
+    }
+}
@@ -0,0 +1,164 @@
+package edu.regis.stemulator.conversation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.regis.stemulator.config.ConversationProperties;
+import edu.regis.stemulator.config.LlmProperties;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.prompt.PromptTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class HistoryCompactorTest {
+
+    private ChatClient.ChatClientRequestSpec requestSpec;
+    private ChatClient.CallResponseSpec responseSpec;
+    private ConversationProperties properties;
+    private HistoryCompactor compactor;
+
+    @BeforeEach
+    void setUp() {
+        ChatClient.Builder chatClientBuilder = mock(ChatClient.Builder.class);
+        ChatClient chatClient = mock(ChatClient.class);
+        requestSpec = mock(ChatClient.ChatClientRequestSpec.class);
+        responseSpec = mock(ChatClient.CallResponseSpec.class);
+        when(chatClientBuilder.build()).thenReturn(chatClient);
+        when(chatClient.prompt()).thenReturn(requestSpec);
+        when(requestSpec.user(anyString())).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(responseSpec);
+
+        properties = new ConversationProperties();
+        properties.getCompaction().setMinTokens(0);
+        properties.getCompaction().setRecentMessages(4);
+        LlmGateway llmGateway = new LlmGateway(new LlmProperties(), "default", ObservationRegistry.NOOP, new SimpleMeterRegistry());
+        compactor = new HistoryCompactor(chatClientBuilder, llmGateway, new PromptTemplates(), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void compact_sendsShortConversationsVerbatim() {
+        // Arrange
+        properties.getCompaction().setMinTokens(2000);
+        List<Message> messages = conversation(10);
+
+        // Act
+        List<Message> compacted = compactor.compact(LlmEndpoint.CHAT, null, messages);
+
+        // Assert
+        assertSame(messages, compacted);
+        verifyNoInteractions(requestSpec);
+    }
+
+    @Test
+    void compact_summarizesOlderTurnsOnce_andExtendsTheSummaryIncrementally() {
+        // Arrange
+        when(responseSpec.content()).thenReturn("Alex set wolves=few.", "Alex set wolves=few and predicted a drop.");
+        List<Message> messages = conversation(10);
+
+        // Act
+        List<Message> first = compactor.compact(LlmEndpoint.CHAT, "session-1", messages);
+        List<Message> repeated = compactor.compact(LlmEndpoint.CHAT, "session-1", messages);
+        List<Message> longer = compactor.compact(LlmEndpoint.CHAT, "session-1", conversation(12));
+
+        // Assert: system prompt, summary, then the 4 latest turns verbatim
+        assertEquals(6, first.size());
+        assertEquals("You are a science teacher.", first.get(0).getContent());
+        assertEquals(HistoryCompactor.SUMMARY_PREFIX + "Alex set wolves=few.", first.get(1).getContent());
+        assertEquals(List.of("turn 6", "turn 7", "turn 8", "turn 9"),
+                first.subList(2, 6).stream().map(Message::getContent).toList());
+        assertEquals(first.get(1).getContent(), repeated.get(1).getContent());
+        assertEquals(HistoryCompactor.SUMMARY_PREFIX + "Alex set wolves=few and predicted a drop.", longer.get(1).getContent());
+
+        // Assert: the second summary only added the turns that aged out since the first
+        ArgumentCaptor<String> prompts = ArgumentCaptor.forClass(String.class);
+        verify(requestSpec, times(2)).user(prompts.capture());
+        String extension = prompts.getAllValues().get(1);
+        assertTrue(extension.contains("Alex set wolves=few."));
+        assertTrue(extension.contains("user: turn 6") && extension.contains("assistant: turn 7"));
+        assertFalse(extension.contains("turn 0\n"));
+    }
+
+    @Test
+    void compact_doesNotShareSummaries_betweenStudentsOrUnidentifiedConversations() {
+        // Arrange
+        when(responseSpec.content()).thenReturn("Alex set wolves=few.", "Sam set wolves=many.", "Anonymous summary.");
+        List<Message> messages = conversation(10);
+        String alex = HistoryCompactor.conversationId("alex", messages);
+        String sam = HistoryCompactor.conversationId("sam", messages);
+
+        // Act
+        compactor.compact(LlmEndpoint.CHAT, alex, messages);
+        List<Message> forSam = compactor.compact(LlmEndpoint.CHAT, sam, messages);
+        compactor.compact(LlmEndpoint.CHAT, null, messages);
+        List<Message> forAlex = compactor.compact(LlmEndpoint.CHAT, alex, messages);
+
+        // Assert: each student got their own summary, and the unidentified one was not cached
+        assertNotEquals(alex, sam);
+        assertNull(HistoryCompactor.conversationId(" ", messages));
+        assertEquals(HistoryCompactor.SUMMARY_PREFIX + "Sam set wolves=many.", forSam.get(1).getContent());
+        assertEquals(HistoryCompactor.SUMMARY_PREFIX + "Alex set wolves=few.", forAlex.get(1).getContent());
+        verify(requestSpec, times(3)).user(anyString());
+    }
+
+    @Test
+    void compact_trimsTheFullHistoryToTheTokenBudget_whenSummarizingFails() {
+        // Arrange
+        when(responseSpec.content()).thenThrow(new IllegalStateException("model unavailable"));
+        properties.getCompaction().setMaxInputTokens(60);
+        List<Message> messages = conversation(10);
+
+        // Act
+        List<Message> compacted = compactor.compact(LlmEndpoint.CHAT, "session-1", messages);
+
+        // Assert: older turns fill what the recent ones leave of the budget instead of being dropped
+        assertTrue(compactor.estimateTokens(compacted) <= 60);
+        assertEquals("You are a science teacher.", compacted.get(0).getContent());
+        assertEquals("turn 9", compacted.get(compacted.size() - 1).getContent());
+        assertTrue(compacted.size() > 5);
+        assertTrue(compacted.stream().noneMatch(message -> message.getContent().startsWith(HistoryCompactor.SUMMARY_PREFIX)));
+    }
+
+    @Test
+    void compact_trimsRecentTurnsToTheTokenBudget_keepingTheLatestMessage() {
+        // Arrange
+        when(responseSpec.content()).thenReturn("Earlier turns.");
+        properties.getCompaction().setMaxInputTokens(40);
+        List<Message> messages = conversation(10);
+        messages.add(message("user", "What should I observe next?"));
+
+        // Act
+        List<Message> compacted = compactor.compact(LlmEndpoint.CHAT, "session-1", messages);
+
+        // Assert
+        assertTrue(compactor.estimateTokens(compacted) <= 40);
+        assertEquals("What should I observe next?", compacted.get(compacted.size() - 1).getContent());
+        assertTrue(compacted.size() < 6);
+    }
+
+    private static List<Message> conversation(int turns) {
+        List<Message> messages = new ArrayList<>();
+        messages.add(message("system", "You are a science teacher."));
+        for (int i = 0; i < turns; i++) {
+            messages.add(message(i % 2 == 0 ? "user" : "assistant", "turn " + i));
+        }
+        return messages;
+    }
+
+    private static Message message(String role, String content) {
+        Message message = new Message();
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+}
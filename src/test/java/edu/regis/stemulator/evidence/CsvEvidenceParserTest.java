@@ -0,0 +1,124 @@
+package edu.regis.stemulator.evidence;
+
+import edu.regis.stemulator.config.EvidenceProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvEvidenceParserTest {
+
+    @Test
+    void parse_summarizesColumns_andKeepsSmallFilesVerbatim() {
+        // Arrange
+        String csv = "generation,brown,white\n1,50,50\n2,40,60\n";
+        MockMultipartFile file = new MockMultipartFile("evidence", "evidence.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        CsvEvidence evidence = new CsvEvidenceParser().parse(file);
+
+        // Assert
+        assertEquals(List.of("generation", "brown", "white"), evidence.getHeader());
+        assertEquals(2, evidence.getRowCount());
+        assertFalse(evidence.isTruncated());
+        assertFalse(evidence.isSampled());
+        assertEquals(csv, evidence.toCsv());
+        assertEquals("brown: min=40, max=50, mean=45", evidence.getColumns().get(1).describe());
+        assertEquals(45.0, evidence.getColumns().get(1).getMean());
+    }
+
+    @Test
+    void parse_samplesLargeFiles_inFileOrder() throws Exception {
+        EvidenceProperties properties = new EvidenceProperties();
+        properties.setHeadRows(2);
+        properties.setSampleRows(3);
+        StringBuilder csv = new StringBuilder("generation,population\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i).append(',').append(i * 2).append('\n');
+        }
+
+        CsvEvidence evidence = new CsvEvidenceParser(properties).parse(stream(csv.toString()));
+
+        assertEquals(1000, evidence.getRowCount());
+        assertTrue(evidence.isSampled());
+        List<String> lines = evidence.getSampledLines();
+        assertEquals(6, lines.size());
+        assertEquals(List.of("generation,population", "1,2", "2,4"), lines.subList(0, 3));
+        // Sampled rows after the head keep their original order
+        int previous = 2;
+        for (String line : lines.subList(3, lines.size())) {
+            int generation = Integer.parseInt(line.split(",")[0]);
+            assertTrue(generation > previous);
+            previous = generation;
+        }
+        assertEquals("population: min=2, max=2000, mean=1001", evidence.getColumns().get(1).describe());
+        assertTrue(evidence.describe().startsWith("rows: 1000 (5 sampled rows shown above)"));
+    }
+
+    @Test
+    void parse_stopsAtByteAndRowLimits() throws Exception {
+        StringBuilder csv = new StringBuilder("generation,population\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append(i).append(',').append(i).append('\n');
+        }
+
+        EvidenceProperties byteLimited = new EvidenceProperties();
+        byteLimited.setMaxBytes(DataSize.ofBytes(100));
+        CsvEvidence bytes = new CsvEvidenceParser(byteLimited).parse(stream(csv.toString()));
+        assertTrue(bytes.isTruncated());
+        assertEquals(100, bytes.getBytesRead());
+
+        EvidenceProperties rowLimited = new EvidenceProperties();
+        rowLimited.setMaxRows(10);
+        CsvEvidence rows = new CsvEvidenceParser(rowLimited).parse(stream(csv.toString()));
+        assertTrue(rows.isTruncated());
+        assertEquals(10, rows.getRowCount());
+
+        CsvEvidence exact = new CsvEvidenceParser().parse(stream(csv.toString()));
+        assertFalse(exact.isTruncated());
+    }
+
+    @Test
+    void parse_handlesQuotes_textColumns_andNormalizesDigest() throws Exception {
+        CsvEvidence windows = new CsvEvidenceParser().parse(stream("\uFEFFtrait,count\r\n\"white, thick\",3\r\nbrown,4  \r\n\r\n"));
+        CsvEvidence unix = new CsvEvidenceParser().parse(stream("trait,count\n\"white, thick\",3\nbrown,4\n"));
+
+        assertEquals(List.of("trait", "count"), windows.getHeader());
+        assertEquals("trait: text (2 values)", windows.getColumns().get(0).describe());
+        assertEquals(windows.getDigest(), unix.getDigest());
+        assertEquals(List.of("white, thick", "3"), CsvEvidenceParser.split("\"white, thick\",3"));
+    }
+
+    @Test
+    void parse_stopsAtOverlongRecord_whenAQuoteIsLeftOpen() throws Exception {
+        // Arrange: a stray quote in row 2 would otherwise swallow every following line
+        StringBuilder csv = new StringBuilder("trait,count\nwhite,3\n\"brown,4\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("grey,").append(i).append('\n');
+        }
+        EvidenceProperties properties = new EvidenceProperties();
+        properties.setMaxRecordChars(1024);
+
+        // Act
+        CsvEvidence evidence = new CsvEvidenceParser(properties).parse(stream(csv.toString()));
+
+        // Assert
+        assertTrue(evidence.isTruncated());
+        assertEquals(1, evidence.getRowCount());
+        assertEquals(List.of("trait,count", "white,3"), evidence.getSampledLines());
+    }
+
+    @Test
+    void parse_returnsNull_withoutEvidence() {
+        assertNull(new CsvEvidenceParser().parse((MockMultipartFile) null));
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
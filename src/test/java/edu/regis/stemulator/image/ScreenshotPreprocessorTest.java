@@ -0,0 +1,73 @@
+package edu.regis.stemulator.image;
+
+import edu.regis.stemulator.config.ScreenshotProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenshotPreprocessorTest {
+
+    @Test
+    void prepare_downscalesAndReencodesLargeScreenshots_andCachesByContent() throws Exception {
+        // Arrange
+        ScreenshotProperties properties = new ScreenshotProperties();
+        properties.setMaxDimension(800);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ScreenshotPreprocessor preprocessor = new ScreenshotPreprocessor(properties, registry);
+        byte[] png = png(3200, 2000);
+        MockMultipartFile upload = new MockMultipartFile("screenshot", "sim.png", "image/png", png);
+
+        // Act
+        PreparedScreenshot prepared = preprocessor.prepare(upload);
+        PreparedScreenshot again = preprocessor.prepare(new MockMultipartFile("screenshot", "sim.png", "image/png", png));
+
+        // Assert
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(prepared.bytes()));
+        assertEquals(800, image.getWidth());
+        assertEquals(500, image.getHeight());
+        assertTrue(prepared.bytes().length < png.length);
+        assertEquals("sim.jpg", prepared.filename());
+        assertEquals("image/jpeg", prepared.contentType());
+        assertSame(prepared, again);
+        assertEquals(1.0, registry.counter(ScreenshotPreprocessor.PREPROCESS_METRIC, "result", "resized").count());
+        assertEquals(1.0, registry.counter(ScreenshotPreprocessor.PREPROCESS_METRIC, "result", "cached").count());
+    }
+
+    @Test
+    void prepare_passesUnreadableUploadsThroughUnchanged() {
+        // Arrange
+        byte[] bytes = "not an image".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile upload = new MockMultipartFile("screenshot", "sim.png", "image/png", bytes);
+
+        // Act
+        PreparedScreenshot prepared = new ScreenshotPreprocessor(new ScreenshotProperties(), new SimpleMeterRegistry()).prepare(upload);
+
+        // Assert
+        assertArrayEquals(bytes, prepared.bytes());
+        assertEquals("sim.png", prepared.filename());
+        assertEquals("image/png", prepared.contentType());
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int x = 0; x < width; x += 100) {
+            graphics.setColor(new Color((x * 7) % 256, (x * 3) % 256, 128));
+            graphics.fillRect(x, 0, 100, height);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -39,7 +39,7 @@ class ChatCompletionsFlowIT extends BaseIntegrationTest {
         expected.setRole("assistant");
         expected.setContent("Hello from the mocked service");
 
-        when(chatCompletionsService.postMessages(anyList())).thenReturn(expected);
+        when(chatCompletionsService.postMessages(anyList(), any())).thenReturn(expected);
 
         // Arrange: request body
         Message system = new Message();
@@ -67,7 +67,7 @@ class ChatCompletionsFlowIT extends BaseIntegrationTest {
         .andExpect(jsonPath("$.content", is("Hello from the mocked service")));
 
         // Verify controller forwarded the list to the service
-        verify(chatCompletionsService, times(1)).postMessages(anyList());
+        verify(chatCompletionsService, times(1)).postMessages(anyList(), any());
         verifyNoMoreInteractions(chatCompletionsService);
     }
 }
@@ -1,11 +1,17 @@
 package edu.regis.stemulator.it;
 
+import com.jayway.jsonpath.JsonPath;
+import edu.regis.stemulator.model.LabPart;
 import edu.regis.stemulator.model.ScienceLab;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.repository.mongo.ScienceLabSearchRepositoryImpl;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -13,6 +19,7 @@ class ScienceLabDatabaseFlowIT extends BaseIntegrationTest {
 
     @Autowired MockMvc mockMvc;
     @Autowired ScienceLabRepository repo;
+    @Autowired MongoTemplate mongoTemplate;
 
     @Test
     void getLab_returnsLabFromDatabase() throws Exception {
@@ -30,4 +37,60 @@ class ScienceLabDatabaseFlowIT extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.discipline").value("Biology"))
                 .andExpect(jsonPath("$.topic").value("Natural Selection"));
     }
+
+    @Test
+    void getLabSummaries_pagesProjectedSummariesByCursor() throws Exception {
+        // Arrange: seed Mongo
+        for (String labId : new String[] {"LAB-A", "LAB-B", "LAB-C"}) {
+            ScienceLab lab = new ScienceLab();
+            lab.setLabId(labId);
+            lab.setDiscipline("Biology");
+            lab.setTopic("Natural Selection");
+            lab.setLabParts(List.of(new LabPart()));
+            repo.save(lab);
+        }
+
+        // Act + Assert: first page carries a cursor, the second page ends the listing
+        String body = mockMvc.perform(get("/stemulator/v1/labs/summaries").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.labs.length()").value(2))
+                .andExpect(jsonPath("$.labs[0].labId").value("LAB-A"))
+                .andExpect(jsonPath("$.labs[0].discipline").value("Biology"))
+                .andExpect(jsonPath("$.labs[0].labParts").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(body, "$.nextCursor");
+
+        mockMvc.perform(get("/stemulator/v1/labs/summaries").param("size", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.labs.length()").value(1))
+                .andExpect(jsonPath("$.labs[0].labId").value("LAB-C"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void searchLabs_filtersByCatalogFieldsAndText() throws Exception {
+        // Arrange: seed Mongo and build the search indexes
+        new ScienceLabSearchRepositoryImpl(mongoTemplate).ensureIndexes();
+        repo.save(searchableLab("LAB-S1", "Biology", "Camouflage helps prey avoid predators"));
+        repo.save(searchableLab("LAB-S2", "Biology", "Mutations introduce new traits"));
+        repo.save(searchableLab("LAB-S3", "Physics", "Camouflage in optics"));
+
+        // Act + Assert
+        mockMvc.perform(get("/stemulator/v1/labs/search")
+                        .param("discipline", "Biology")
+                        .param("q", "camouflage"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.labs.length()").value(1))
+                .andExpect(jsonPath("$.labs[0].labId").value("LAB-S1"))
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    private static ScienceLab searchableLab(String labId, String discipline, String description) {
+        ScienceLab lab = new ScienceLab();
+        lab.setLabId(labId);
+        lab.setDiscipline(discipline);
+        lab.setTopic("Natural Selection");
+        lab.setDescription(description);
+        return lab;
+    }
 }
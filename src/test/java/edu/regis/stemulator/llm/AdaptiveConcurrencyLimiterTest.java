@@ -0,0 +1,90 @@
+package edu.regis.stemulator.llm;
+
+import edu.regis.stemulator.config.LlmProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void acquire_admitsInteractiveCallsBeforeQueuedBackgroundWork() throws Exception {
+        // Arrange: a fixed limit of one, already taken
+        LlmProperties.Limiter settings = new LlmProperties.Limiter();
+        settings.setAdaptive(false);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("gpt-test", 1, settings, new SimpleMeterRegistry());
+        AdaptiveConcurrencyLimiter.Permit holder = limiter.acquire(LlmPriority.INTERACTIVE, Duration.ZERO);
+
+        List<LlmPriority> admitted = new CopyOnWriteArrayList<>();
+        Thread background = waitFor(limiter, LlmPriority.BACKGROUND, admitted);
+        await().until(() -> limiter.getQueued() == 1);
+        Thread interactive = waitFor(limiter, LlmPriority.INTERACTIVE, admitted);
+        await().until(() -> limiter.getQueued() == 2);
+
+        // Act
+        holder.onSuccess();
+        background.join(5_000);
+        interactive.join(5_000);
+
+        // Assert: the later interactive call went first
+        assertEquals(List.of(LlmPriority.INTERACTIVE, LlmPriority.BACKGROUND), admitted);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limit_backsOffOnOverload_andGrowsBackOnSuccess() {
+        LlmProperties.Limiter settings = new LlmProperties.Limiter();
+        settings.setInitialLimit(10);
+        settings.setMinLimit(2);
+        settings.setBackoffRatio(0.5);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("gpt-test", 12, settings, new SimpleMeterRegistry());
+
+        limiter.acquire(LlmPriority.STANDARD, Duration.ZERO).onOverload();
+        assertEquals(5.0, limiter.getLimit());
+        limiter.acquire(LlmPriority.STANDARD, Duration.ZERO).onOverload();
+        limiter.acquire(LlmPriority.STANDARD, Duration.ZERO).onOverload();
+        assertEquals(2.0, limiter.getLimit());
+
+        // Growth needs the limit to be in use: both slots are held when the first completes,
+        // only one of three when the second does
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(LlmPriority.STANDARD, Duration.ZERO);
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire(LlmPriority.STANDARD, Duration.ZERO);
+        first.onSuccess();
+        second.onSuccess();
+        assertEquals(3.0, limiter.getLimit());
+    }
+
+    @Test
+    void acquire_rejectsAtOnce_whenQueueIsFull() {
+        LlmProperties.Limiter settings = new LlmProperties.Limiter();
+        settings.setAdaptive(false);
+        settings.setMaxQueueSize(0);
+        settings.setRetryAfter(Duration.ofMillis(2500));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("gpt-test", 1, settings, meterRegistry);
+        limiter.acquire(LlmPriority.INTERACTIVE, Duration.ZERO);
+
+        LlmUnavailableException rejected = assertThrows(LlmUnavailableException.class,
+                () -> limiter.acquire(LlmPriority.BACKGROUND, Duration.ofSeconds(30)));
+
+        assertEquals("3", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get(AdaptiveConcurrencyLimiter.REJECTED_METRIC)
+                .tag("priority", "BACKGROUND").tag("reason", "queue_full").counter().count());
+        assertEquals(1.0, meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT_METRIC).gauge().value());
+    }
+
+    private static Thread waitFor(AdaptiveConcurrencyLimiter limiter, LlmPriority priority, List<LlmPriority> admitted) {
+        return Thread.ofVirtual().start(() -> {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(priority, Duration.ofSeconds(5));
+            admitted.add(priority);
+            permit.onSuccess();
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package edu.regis.stemulator.llm;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import edu.regis.stemulator.config.LlmProperties;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.DefaultUsage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.observation.ChatModelObservationContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.TransientAiException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmGatewayTest {
+
+    private static final String PROMPT = "Why do rabbits decrease?";
+
+    @Test
+    void call_failsFast_whenModelIsAtCapacity() throws Exception {
+        // Arrange: one slot for the model, short wait
+        LlmProperties properties = new LlmProperties();
+        properties.setMaxConcurrency(Map.of("gpt-test", 1));
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        LlmGateway gateway = new LlmGateway(properties, "gpt-test", ObservationRegistry.NOOP, new SimpleMeterRegistry());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = Thread.ofVirtual().start(() -> gateway.call(gateway.route(LlmEndpoint.CHAT, PROMPT), () -> {
+            started.countDown();
+            await(release);
+            return "first";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act + Assert: second caller cannot get a slot
+        assertThrows(LlmUnavailableException.class, () -> gateway.call(gateway.route(LlmEndpoint.GUIDANCE, PROMPT), () -> "second"));
+
+        // Once released, the slot is reusable
+        release.countDown();
+        holder.join();
+        assertEquals("third", gateway.call(gateway.route(LlmEndpoint.GUIDANCE, PROMPT), () -> "third"));
+    }
+
+    @Test
+    void stream_releasesSlot_whenCancelled() {
+        LlmProperties properties = new LlmProperties();
+        properties.setMaxConcurrency(Map.of("gpt-test", 1));
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        LlmGateway gateway = new LlmGateway(properties, "gpt-test", ObservationRegistry.NOOP, new SimpleMeterRegistry());
+
+        // take(1) cancels the upstream after the first token
+        assertEquals("a", gateway.stream(gateway.route(LlmEndpoint.CHAT, PROMPT), () -> Flux.just("a", "b", "c")).take(1).blockFirst());
+        assertEquals("ok", gateway.call(gateway.route(LlmEndpoint.CHAT, PROMPT), () -> "ok"));
+    }
+
+    @Test
+    void call_recordsLatencyTokensAndParseFailures_perEndpoint() {
+        // Arrange: the same wiring Spring Boot applies to the observation registry
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LlmTokenUsageObservationHandler tokenHandler = new LlmTokenUsageObservationHandler(meterRegistry);
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig()
+                .observationHandler(new DefaultMeterObservationHandler(meterRegistry))
+                .observationHandler(tokenHandler)
+                .observationFilter(tokenHandler);
+        LlmGateway gateway = new LlmGateway(new LlmProperties(), "gpt-test", observationRegistry, meterRegistry);
+
+        // Act: a model call nested in the gateway call, as ChatClient does it
+        gateway.call(gateway.route(LlmEndpoint.GUIDANCE, PROMPT), () -> {
+            ChatModelObservationContext context = ChatModelObservationContext.builder()
+                    .prompt(new Prompt("hello"))
+                    .provider("openai")
+                    .build();
+            Observation.createNotStarted("gen_ai.client.operation", () -> context, observationRegistry).observe(() ->
+                    context.setResponse(new ChatResponse(List.of(), ChatResponseMetadata.builder()
+                            .model("gpt-test")
+                            .usage(new DefaultUsage(120, 30))
+                            .build())));
+            return "ok";
+        });
+        assertThrows(RuntimeException.class, () -> gateway.call(gateway.route(LlmEndpoint.STUDENT_EVAL, PROMPT), () -> {
+            throw new RuntimeException(new JsonParseException(null, "not json"));
+        }));
+
+        // Assert
+        assertEquals(1, meterRegistry.get(LlmGateway.CALL_METRIC).tag("endpoint", "GUIDANCE").tag("model", "gpt-test").timer().count());
+        assertEquals(120.0, meterRegistry.get(LlmTokenUsageObservationHandler.TOKENS_METRIC)
+                .tag("endpoint", "GUIDANCE").tag("type", "prompt").summary().totalAmount());
+        assertEquals(30.0, meterRegistry.get(LlmTokenUsageObservationHandler.TOKENS_METRIC)
+                .tag("endpoint", "GUIDANCE").tag("type", "completion").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get(LlmGateway.PARSE_FAILURE_METRIC).tag("endpoint", "STUDENT_EVAL").counter().count());
+        assertEquals(1, meterRegistry.get(LlmGateway.CALL_METRIC).tag("endpoint", "STUDENT_EVAL").tag("error", "RuntimeException").timer().count());
+    }
+
+    @Test
+    void call_retriesUpstreamFailures_andTimesOutAtTheDeadline() {
+        // Arrange
+        LlmProperties properties = new LlmProperties();
+        properties.getRetry().setBackoff(Duration.ofMillis(1));
+        properties.setDeadlines(Map.of(LlmEndpoint.CHAT, Duration.ofMillis(200)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LlmGateway gateway = new LlmGateway(properties, "gpt-test", ObservationRegistry.NOOP, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act + Assert: a 5xx is retried once, a bad request is not
+        assertEquals("second", gateway.call(gateway.route(LlmEndpoint.GUIDANCE, PROMPT), () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new TransientAiException("500 - upstream error");
+            }
+            return "second";
+        }));
+        assertEquals(1.0, meterRegistry.get(LlmGateway.RETRY_METRIC).tag("endpoint", "GUIDANCE").counter().count());
+        attempts.set(0);
+        assertThrows(IllegalArgumentException.class, () -> gateway.call(gateway.route(LlmEndpoint.GUIDANCE, PROMPT), () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("bad prompt");
+        }));
+        assertEquals(1, attempts.get());
+
+        // A stalled call gives up at the endpoint deadline
+        long start = System.nanoTime();
+        assertThrows(LlmTimeoutException.class, () -> gateway.call(gateway.route(LlmEndpoint.CHAT, PROMPT), () -> {
+            sleep(5_000);
+            return "late";
+        }));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void call_hedgesSlowGuidance_withASecondRequest() {
+        LlmProperties properties = new LlmProperties();
+        properties.setHedgeDelays(Map.of(LlmEndpoint.GUIDANCE, Duration.ofMillis(50)));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LlmGateway gateway = new LlmGateway(properties, "gpt-test", ObservationRegistry.NOOP, meterRegistry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // The first request stalls; the hedge answers
+        String result = gateway.call(gateway.route(LlmEndpoint.GUIDANCE, PROMPT), () -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5_000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertEquals("fast", result);
+        // The win is counted by the attempt's thread right after it hands over the result
+        Awaitility.await().until(() -> meterRegistry.find(LlmGateway.HEDGE_METRIC).tag("result", "won").counter() != null);
+        assertEquals(1.0, meterRegistry.get(LlmGateway.HEDGE_METRIC).tag("result", "won").counter().count());
+    }
+
+    @Test
+    void call_failsFast_whileCircuitIsOpen() {
+        LlmProperties properties = new LlmProperties();
+        properties.getRetry().setMaxAttempts(1);
+        properties.getCircuit().setMinimumCalls(4);
+        properties.getCircuit().setWindowSize(4);
+        LlmGateway gateway = new LlmGateway(properties, "gpt-test", ObservationRegistry.NOOP, new SimpleMeterRegistry());
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(TransientAiException.class, () -> gateway.call(gateway.route(LlmEndpoint.CHAT, PROMPT), () -> {
+                attempts.incrementAndGet();
+                throw new TransientAiException("503 - overloaded");
+            }));
+        }
+
+        LlmUnavailableException open = assertThrows(LlmUnavailableException.class,
+                () -> gateway.call(gateway.route(LlmEndpoint.CHAT, PROMPT), () -> "never called"));
+        assertEquals(4, attempts.get());
+        assertNotNull(open.getHeaders().getFirst("Retry-After"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
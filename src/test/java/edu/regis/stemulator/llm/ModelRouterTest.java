@@ -0,0 +1,46 @@
+package edu.regis.stemulator.llm;
+
+import edu.regis.stemulator.config.LlmProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.openai.OpenAiChatOptions;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelRouterTest {
+
+    @Test
+    void route_picksModelByEndpointAndPromptSize_andCountsEachRoute() {
+        // Arrange: chat on a small model unless the prompt is long; guidance not routed
+        LlmProperties.Route chat = new LlmProperties.Route();
+        chat.setModel("small-model");
+        chat.setLargePromptTokens(100);
+        chat.setLargeModel("large-model");
+        chat.setTemperature(0.0);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ModelRouter router = new ModelRouter(Map.of(LlmEndpoint.CHAT, chat), "default-model", meterRegistry);
+
+        // Act
+        ModelRoute shortTurn = router.route(LlmEndpoint.CHAT, "x".repeat(200));
+        ModelRoute longTurn = router.route(LlmEndpoint.CHAT, "x".repeat(4_000));
+        ModelRoute guidance = router.route(LlmEndpoint.GUIDANCE, "x".repeat(4_000));
+
+        // Assert
+        assertEquals(ModelRoute.STANDARD, shortTurn.name());
+        assertEquals("small-model", ((OpenAiChatOptions) shortTurn.options()).getModel());
+        assertEquals(0.0, shortTurn.options().getTemperature());
+        assertEquals(ModelRoute.LARGE_PROMPT, longTurn.name());
+        assertEquals("large-model", longTurn.model());
+        // Unrouted endpoints leave the request untouched
+        assertEquals(ModelRoute.DEFAULT, guidance.name());
+        assertEquals("default-model", guidance.model());
+        assertNull(guidance.options());
+
+        assertEquals(1.0, meterRegistry.get(ModelRouter.ROUTE_METRIC)
+                .tag("endpoint", "CHAT").tag("route", "large_prompt").tag("model", "large-model").counter().count());
+        assertEquals(1.0, meterRegistry.get(ModelRouter.ROUTE_METRIC)
+                .tag("endpoint", "GUIDANCE").tag("route", "default").counter().count());
+    }
+}
@@ -0,0 +1,104 @@
+package edu.regis.stemulator.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallers_shareOneExecution() throws Exception {
+        // Arrange
+        SingleFlight singleFlight = new SingleFlight(64);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> call = () -> {
+            executions.incrementAndGet();
+            awaitQuietly(release);
+            return "guidance";
+        };
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 30; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("prompt", call)));
+            }
+            await().until(() -> executions.get() == 1 && singleFlight.inFlight() == 1);
+            Thread.sleep(50);
+            release.countDown();
+
+            // Assert
+            for (Future<String> result : results) {
+                assertEquals("guidance", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void failure_isPropagatedToEveryWaiter_andNotRemembered() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(64);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("prompt", () -> {
+                executions.incrementAndGet();
+                awaitQuietly(release);
+                throw new LlmUnavailableException("model down");
+            }));
+            await().until(() -> executions.get() == 1);
+            Future<String> waiter = executor.submit(() -> singleFlight.<String>execute("prompt", () -> "unexpected"));
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<String> result : List.of(leader, waiter)) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(LlmUnavailableException.class, e.getCause());
+            }
+        }
+        // The next caller starts a fresh flight
+        assertEquals("retried", singleFlight.execute("prompt", () -> "retried"));
+    }
+
+    @Test
+    void callersBeyondWaiterCap_runTheirOwnCall() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("prompt", () -> {
+                executions.incrementAndGet();
+                awaitQuietly(release);
+                return "leader";
+            }));
+            await().until(() -> executions.get() == 1);
+
+            assertEquals("own", singleFlight.execute("prompt", () -> "own"));
+            release.countDown();
+            assertEquals("leader", leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package edu.regis.stemulator.load;
+
+import edu.regis.stemulator.it.BaseIntegrationTest;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test: the API runs against a Testcontainers Mongo and the local
+ * {@link OpenAiStubServer}, and a fixed number of virtual users drive a weighted mix
+ * of every /stemulator/v1 endpoint. Throughput, latency percentiles and heap/GC
+ * statistics are printed and written to target/load-report.json.
+ *
+ * <p>Disabled unless run through the load-test profile:
+ * {@code mvn -Pload-test verify -Dstemulator.load.users=100 -Dstub.latency.median=500}
+ */
+@EnabledIfSystemProperty(named = "stemulator.load", matches = "true")
+class ApiLoadIT extends BaseIntegrationTest {
+
+    private static final OpenAiStubServer stub = new OpenAiStubServer(OpenAiStubServer.Settings.fromSystemProperties());
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired ScienceLabRepository labRepository;
+    @LocalServerPort int port;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final List<Operation> mix = List.of(
+            new Operation("GET /labs/{id}", 30, this::getLab),
+            new Operation("GET /labs", 10, this::getLabs),
+            new Operation("POST /guides", 20, random -> guidance(random, false)),
+            new Operation("POST /guides/stream", 10, random -> guidance(random, true)),
+            new Operation("POST /chat/completions", 10, random -> chat(random, false)),
+            new Operation("POST /chat/completions sse", 5, random -> chat(random, true)),
+            new Operation("POST /student_eval", 8, this::studentEval),
+            new Operation("POST /labs", 2, random -> createLab(random, "")),
+            new Operation("POST /labs/jobs", 5, random -> createLab(random, "/jobs")));
+
+    private List<ScienceLab> labs;
+
+    @DynamicPropertySource
+    static void stubProps(DynamicPropertyRegistry registry) throws IOException {
+        String url = stub.start(0);
+        registry.add("spring.ai.openai.base-url", () -> url);
+        registry.add("spring.ai.openai.api-key", () -> "stub-key");
+        // Every simulated user comes from one address; the run measures capacity, not admission control
+        registry.add("stemulator.rate-limit.enabled", () -> "false");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void driveAllEndpoints() throws Exception {
+        int users = Integer.getInteger("stemulator.load.users", 50);
+        Duration warmup = Duration.parse(System.getProperty("stemulator.load.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("stemulator.load.duration", "PT60S"));
+        labs = labRepository.saveAll(fixtureLabs());
+
+        LoadReport report = new LoadReport();
+        run(users, warmup, new LoadReport());
+        report.start();
+        run(users, duration, report);
+        report.finish();
+
+        System.out.println("Load test: " + users + " users for " + duration + " against stub " + stub.requestCount() + " model calls");
+        System.out.print(report.toTable());
+        report.write(Path.of("target", "load-report.json"));
+
+        for (Operation operation : mix) {
+            assertTrue(report.successes(operation.name()) > 0, "No successful requests for " + operation.name());
+        }
+    }
+
+    private void run(int users, Duration duration, LoadReport report) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        Operation operation = pick(random.nextInt(totalWeight));
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            success = operation.call().send(random) / 100 == 2;
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        report.record(operation.name(), System.nanoTime() - start, success);
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(duration.toSeconds() + 300, TimeUnit.SECONDS);
+        }
+    }
+
+    private Operation pick(int ticket) {
+        for (Operation operation : mix) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return mix.get(0);
+    }
+
+    private int getLab(ThreadLocalRandom random) throws Exception {
+        return send(HttpRequest.newBuilder(uri("/labs/" + lab(random).getLabId())).GET());
+    }
+
+    private int getLabs(ThreadLocalRandom random) throws Exception {
+        return send(HttpRequest.newBuilder(uri("/labs")).GET());
+    }
+
+    private int guidance(ThreadLocalRandom random, boolean stream) throws Exception {
+        ScienceLab lab = lab(random);
+        int partId = random.nextInt(lab.getLabParts().size());
+        Map<String, Object> submission = Map.of(
+                "studentName", "Student " + random.nextInt(30),
+                "setup", List.of("predation=medium", "food=" + (random.nextBoolean() ? "limited" : "plenty")),
+                "observations", List.of("the white rabbits survive longer in the snow"),
+                "predictions", List.of("white fur will become more common"));
+        Multipart form = new Multipart()
+                .part("scienceGuideRequest", null, "application/json", objectMapper.writeValueAsBytes(submission))
+                .part("evidence", "evidence.csv", "text/csv", evidence(random.nextInt(20, 400)));
+        String path = "/guides/lab/" + lab.getLabId() + "/part/" + partId + (stream ? "/stream" : "");
+        return send(form.post(uri(path)).header("Accept", stream ? "text/event-stream" : "application/json"));
+    }
+
+    private int chat(ThreadLocalRandom random, boolean stream) throws Exception {
+        ScienceLab lab = lab(random);
+        Map<String, Object> body = Map.of("messages", List.of(
+                Map.of("role", "system", "content", "You are a science guide for lab " + lab.getLabId() + ": " + lab.getDescription()),
+                Map.of("role", "user", "content", "What should I observe in " + lab.getLabParts().get(0).getTitle() + "?")));
+        return send(HttpRequest.newBuilder(uri("/chat/completions"))
+                .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+    }
+
+    private int studentEval(ThreadLocalRandom random) throws Exception {
+        Map<String, Object> body = Map.of("messages", List.of(
+                Map.of("role", "system", "content", "Evaluate the student's lab work for " + lab(random).getLabId()),
+                Map.of("role", "user", "content", "I observed that white rabbits survive in snow and predicted white fur would increase.")));
+        return send(HttpRequest.newBuilder(uri("/student_eval"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))));
+    }
+
+    private int createLab(ThreadLocalRandom random, String suffix) throws Exception {
+        Multipart form = new Multipart()
+                .field("labId", "LOAD-" + UUID.randomUUID())
+                .field("discipline", "Life Science")
+                .field("topic", "Biological Evolution: Unity and Diversity")
+                .field("subTopic", "Natural Selection")
+                .field("expertise", "Evolutionary Biology")
+                .field("simulation", "Natural Selection")
+                .part("screenshot", "simulation.png", "image/png", new byte[2048]);
+        return send(form.post(uri("/labs" + suffix)));
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        // Streaming responses are read to the end so the measured time covers the whole stream
+        HttpResponse<InputStream> response = httpClient.send(request.timeout(Duration.ofMinutes(2)).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+        return response.statusCode();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/stemulator/v1" + path);
+    }
+
+    private ScienceLab lab(ThreadLocalRandom random) {
+        return labs.get(random.nextInt(labs.size()));
+    }
+
+    private static byte[] evidence(int rows) {
+        StringBuilder csv = new StringBuilder("generation,brown_fur,white_fur,wolves,food\n");
+        for (int generation = 1; generation <= rows; generation++) {
+            csv.append(generation).append(',').append(50 + generation % 40).append(',').append(50 + generation % 60)
+                    .append(',').append(generation % 3 == 0 ? "many" : "few").append(',').append("plenty").append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<ScienceLab> fixtureLabs() throws IOException {
+        List<ScienceLab> labs = new ArrayList<>();
+        for (Resource export : new PathMatchingResourcePatternResolver().getResources("classpath:data/stemulator.labs.*.json")) {
+            try (InputStream in = export.getInputStream()) {
+                for (JsonNode node : objectMapper.readTree(in)) {
+                    ObjectNode lab = ((ObjectNode) node).deepCopy();
+                    lab.set("labId", lab.remove("_id"));
+                    lab.remove("_class");
+                    labs.add(objectMapper.treeToValue(lab, ScienceLab.class));
+                }
+            }
+        }
+        return labs;
+    }
+
+    private record Operation(String name, int weight, Call call) { }
+
+    @FunctionalInterface
+    private interface Call {
+        int send(ThreadLocalRandom random) throws Exception;
+    }
+
+    /** multipart/form-data body for java.net.http. */
+    private static final class Multipart {
+        private final String boundary = "----stemulator" + UUID.randomUUID();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        Multipart field(String name, String value) {
+            return part(name, null, null, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Multipart part(String name, String filename, String contentType, byte[] content) {
+            StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+            if (filename != null) {
+                header.append("; filename=\"").append(filename).append('"');
+            }
+            header.append("\r\n");
+            if (contentType != null) {
+                header.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            header.append("\r\n");
+            body.writeBytes(header.toString().getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(content);
+            body.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        HttpRequest.Builder post(URI uri) {
+            byte[] bytes = body.toByteArray();
+            byte[] closing = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+            byte[] all = new byte[bytes.length + closing.length];
+            System.arraycopy(bytes, 0, all, 0, bytes.length);
+            System.arraycopy(closing, 0, all, bytes.length, closing.length);
+            return HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(all));
+        }
+    }
+}
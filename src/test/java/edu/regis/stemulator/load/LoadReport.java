@@ -0,0 +1,167 @@
+package edu.regis.stemulator.load;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Latency, throughput and JVM statistics for one load-test run. Latencies are kept
+ * exactly (one long per request) so percentiles are not approximated.
+ */
+public class LoadReport {
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentSkipListMap<>();
+    private long startedAt;
+    private long finishedAt;
+    private long gcCountAtStart;
+    private long gcTimeAtStart;
+    private long gcCount;
+    private long gcTime;
+    private long heapUsedAtStart;
+    private long heapUsedAtEnd;
+    private long peakHeap;
+
+    public void start() {
+        endpoints.clear();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        gcCountAtStart = totalGcCount();
+        gcTimeAtStart = totalGcTime();
+        heapUsedAtStart = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        startedAt = System.nanoTime();
+    }
+
+    public void finish() {
+        finishedAt = System.nanoTime();
+        gcCount = totalGcCount() - gcCountAtStart;
+        gcTime = totalGcTime() - gcTimeAtStart;
+        heapUsedAtEnd = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        peakHeap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+
+    public void record(String endpoint, long nanos, boolean success) {
+        endpoints.computeIfAbsent(endpoint, name -> new EndpointStats()).record(nanos, success);
+    }
+
+    public long successes(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        return stats == null ? 0 : stats.successes.sum();
+    }
+
+    public Map<String, Object> toMap() {
+        double seconds = Duration.ofNanos(finishedAt - startedAt).toMillis() / 1000.0;
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", seconds);
+        long total = endpoints.values().stream().mapToLong(stats -> stats.successes.sum() + stats.failures.sum()).sum();
+        report.put("requests", total);
+        report.put("throughputPerSecond", total / seconds);
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        endpoints.forEach((name, stats) -> perEndpoint.put(name, stats.toMap(seconds)));
+        report.put("endpoints", perEndpoint);
+        Map<String, Object> jvm = new LinkedHashMap<>();
+        jvm.put("heapUsedAtStartMb", heapUsedAtStart >> 20);
+        jvm.put("heapUsedAtEndMb", heapUsedAtEnd >> 20);
+        jvm.put("peakHeapMb", peakHeap >> 20);
+        jvm.put("gcCount", gcCount);
+        jvm.put("gcTimeMs", gcTime);
+        jvm.put("gcTimePercent", seconds > 0 ? gcTime / (seconds * 10) : 0);
+        report.put("jvm", jvm);
+        return report;
+    }
+
+    public String toTable() {
+        Map<String, Object> report = toMap();
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-28s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+        endpoints.forEach((name, stats) -> {
+            Map<String, Object> row = stats.toMap((double) report.get("durationSeconds"));
+            table.append(String.format(Locale.ROOT, "%-28s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    name, row.get("requests"), row.get("errors"), row.get("throughputPerSecond"),
+                    row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"), row.get("maxMs")));
+        });
+        table.append(String.format(Locale.ROOT, "total %d requests, %.1f req/s%n",
+                report.get("requests"), report.get("throughputPerSecond")));
+        table.append("jvm ").append(report.get("jvm")).append('\n');
+        return table.toString();
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), toMap());
+    }
+
+    private static long totalGcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long totalGcTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static final class EndpointStats {
+        private final List<long[]> chunks = new ArrayList<>();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private long[] current = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos, boolean success) {
+            if (size == current.length) {
+                chunks.add(current);
+                current = new long[current.length * 2];
+                size = 0;
+            }
+            current[size++] = nanos;
+            (success ? successes : failures).increment();
+        }
+
+        synchronized Map<String, Object> toMap(double seconds) {
+            int count = size + chunks.stream().mapToInt(chunk -> chunk.length).sum();
+            long[] all = new long[count];
+            int offset = 0;
+            for (long[] chunk : chunks) {
+                System.arraycopy(chunk, 0, all, offset, chunk.length);
+                offset += chunk.length;
+            }
+            System.arraycopy(current, 0, all, offset, size);
+            Arrays.sort(all);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", (long) count);
+            row.put("errors", failures.sum());
+            row.put("throughputPerSecond", count / seconds);
+            row.put("p50Ms", percentile(all, 0.50));
+            row.put("p95Ms", percentile(all, 0.95));
+            row.put("p99Ms", percentile(all, 0.99));
+            row.put("maxMs", count == 0 ? 0.0 : all[count - 1] / 1e6);
+            return row;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
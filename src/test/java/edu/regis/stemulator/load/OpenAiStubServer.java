@@ -0,0 +1,303 @@
+package edu.regis.stemulator.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal OpenAI-compatible chat completions server for load tests. Each response is
+ * delayed by a log-normal latency (configured by its median and p99) and, when
+ * structured output is requested, is valid JSON for the requested type: ScienceLab,
+ * ScienceGuideResponse, StudentEvalResult or Message. Streaming requests receive SSE
+ * chunks one token at a time.
+ *
+ * <p>Run standalone with {@code main} to point a locally running API at it via
+ * {@code spring.ai.openai.base-url}.
+ */
+public class OpenAiStubServer implements AutoCloseable {
+
+    // Spring AI's BeanOutputConverter appends the target type's JSON schema after this marker
+    private static final String SCHEMA_MARKER = "Here is the JSON Schema instance your output must adhere to:";
+    private static final Pattern LAB_ID = Pattern.compile("labId is ([^,\\s]+)");
+    private static final double Z_99 = 2.326;
+
+    private final Settings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong requests = new AtomicLong();
+    private HttpServer server;
+
+    public record Settings(Duration medianLatency, Duration p99Latency, Duration tokenDelay, double errorRate) {
+
+        public static Settings defaults() {
+            return new Settings(Duration.ofMillis(800), Duration.ofMillis(3000), Duration.ofMillis(15), 0.0);
+        }
+
+        /** stub.latency.median, stub.latency.p99 and stub.token-delay as ISO-8601 or millis; stub.error-rate in [0, 1]. */
+        public static Settings fromSystemProperties() {
+            Settings defaults = defaults();
+            return new Settings(
+                    duration("stub.latency.median", defaults.medianLatency()),
+                    duration("stub.latency.p99", defaults.p99Latency()),
+                    duration("stub.token-delay", defaults.tokenDelay()),
+                    Double.parseDouble(System.getProperty("stub.error-rate", String.valueOf(defaults.errorRate()))));
+        }
+
+        private static Duration duration(String name, Duration fallback) {
+            String value = System.getProperty(name);
+            if (value == null || value.isBlank()) {
+                return fallback;
+            }
+            return value.startsWith("P") ? Duration.parse(value) : Duration.ofMillis(Long.parseLong(value));
+        }
+    }
+
+    public OpenAiStubServer(Settings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        OpenAiStubServer stub = new OpenAiStubServer(Settings.fromSystemProperties());
+        System.out.println("OpenAI stub listening on " + stub.start(port) + " with " + stub.settings);
+        Thread.currentThread().join();
+    }
+
+    public String start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readTree(body);
+            }
+            sleep(sampleLatency());
+            if (ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                send(exchange, 503, "application/json",
+                        "{\"error\":{\"message\":\"stub overloaded\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            String prompt = promptText(request);
+            String model = request.path("model").asText("stub-model");
+            String content = content(prompt);
+            int promptTokens = Math.max(1, prompt.length() / 4);
+            if (request.path("stream").asBoolean(false)) {
+                stream(exchange, model, content, promptTokens, request.path("stream_options").path("include_usage").asBoolean(false));
+            } else {
+                send(exchange, 200, "application/json", objectMapper.writeValueAsString(completion(model, content, promptTokens)));
+            }
+        }
+    }
+
+    private String content(String prompt) throws IOException {
+        int schemaStart = prompt.indexOf(SCHEMA_MARKER);
+        if (schemaStart < 0) {
+            return "Look closely at how the population changes from one generation to the next. "
+                    + "Which trait becomes more common once the environment changes, and why might that be?";
+        }
+        String schema = prompt.substring(schemaStart);
+        if (schema.contains("\"labParts\"")) {
+            return objectMapper.writeValueAsString(scienceLab(prompt));
+        }
+        if (schema.contains("\"overallScore\"")) {
+            return objectMapper.writeValueAsString(Map.of(
+                    "overallScore", 82,
+                    "feedback", "Clear observations that are supported by the collected data.",
+                    "strengths", List.of("Uses evidence from the CSV", "Predictions follow from observations"),
+                    "areasForImprovement", List.of("Quantify the change between generations"),
+                    "guidance", "Next time, compare the trait frequencies before and after the environment changes."));
+        }
+        if (schema.contains("\"refusal\"")) {
+            return objectMapper.writeValueAsString(Map.of(
+                    "role", "assistant",
+                    "content", "Great question! What do you notice about the rabbits that survive the winter?"));
+        }
+        return objectMapper.writeValueAsString(Map.of(
+                "guidance", "Your observation about fur color matches the data: white fur rose from 50 to 60 once snow arrived. "
+                        + "What would you expect to happen if the environment turned brown again?"));
+    }
+
+    private Map<String, Object> scienceLab(String prompt) {
+        Matcher labId = LAB_ID.matcher(prompt);
+        List<Map<String, Object>> parts = new ArrayList<>();
+        for (int part = 1; part <= 4; part++) {
+            parts.add(Map.of(
+                    "partId", part,
+                    "title", "Part " + part + " - Investigating natural selection",
+                    "setup", List.of("Add a brown fur mutation", "Introduce wolves", "Run the simulation for 10 generations"),
+                    "observations", List.of("What happens to the brown rabbits?", "Which trait becomes more common?", "How does food affect the population?"),
+                    "evidence", List.of("Record the number of rabbits with each trait per generation in a csv file."),
+                    "predictions", List.of("What will happen if the environment changes?", "Which trait will dominate after 20 generations?")));
+        }
+        return Map.of(
+                "labId", labId.find() ? labId.group(1) : "HS-LS4-2",
+                "discipline", "Life Science",
+                "topic", "Biological Evolution: Unity and Diversity",
+                "subTopic", "Natural Selection",
+                "description", "Stub lab generated for load testing.",
+                "learningGoals", Map.of(
+                        "bigIdea", "Natural selection changes the traits of a population over generations.",
+                        "objectives", List.of("Objective 1", "Objective 2", "Objective 3", "Objective 4"),
+                        "successCriteria", List.of("Criterion 1", "Criterion 2", "Criterion 3", "Criterion 4")),
+                "labParts", parts);
+    }
+
+    private ObjectNode completion(String model, String content, int promptTokens) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-" + UUID.randomUUID());
+        response.put("object", "chat.completion");
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", model);
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        response.set("usage", usage(promptTokens, tokens(content).size()));
+        return response;
+    }
+
+    private void stream(HttpExchange exchange, String model, String content, int promptTokens, boolean includeUsage) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        String id = "chatcmpl-" + UUID.randomUUID();
+        List<String> tokens = tokens(content);
+        OutputStream out = exchange.getResponseBody();
+
+        writeEvent(out, chunk(id, model, delta -> delta.put("role", "assistant").put("content", ""), null));
+        for (String token : tokens) {
+            sleep(settings.tokenDelay());
+            writeEvent(out, chunk(id, model, delta -> delta.put("content", token), null));
+        }
+        writeEvent(out, chunk(id, model, delta -> { }, "stop"));
+        if (includeUsage) {
+            ObjectNode usageChunk = chunk(id, model, delta -> { }, null);
+            ((ArrayNode) usageChunk.get("choices")).removeAll();
+            usageChunk.set("usage", usage(promptTokens, tokens.size()));
+            writeEvent(out, usageChunk);
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private ObjectNode chunk(String id, String model, Consumer<ObjectNode> delta, String finishReason) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        chunk.put("id", id);
+        chunk.put("object", "chat.completion.chunk");
+        chunk.put("created", System.currentTimeMillis() / 1000);
+        chunk.put("model", model);
+        ObjectNode choice = chunk.putArray("choices").addObject();
+        choice.put("index", 0);
+        delta.accept(choice.putObject("delta"));
+        if (finishReason != null) {
+            choice.put("finish_reason", finishReason);
+        } else {
+            choice.putNull("finish_reason");
+        }
+        return chunk;
+    }
+
+    private void writeEvent(OutputStream out, ObjectNode data) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private ObjectNode usage(int promptTokens, int completionTokens) {
+        ObjectNode usage = objectMapper.createObjectNode();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return usage;
+    }
+
+    private static String promptText(JsonNode request) {
+        StringBuilder prompt = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            JsonNode content = message.path("content");
+            if (content.isTextual()) {
+                prompt.append(content.asText()).append('\n');
+            } else {
+                // Multi-part user content (text plus image)
+                for (JsonNode part : content) {
+                    prompt.append(part.path("text").asText("")).append('\n');
+                }
+            }
+        }
+        return prompt.toString();
+    }
+
+    // Roughly one token per word, keeping the whitespace so the chunks reassemble exactly
+    private static List<String> tokens(String content) {
+        List<String> tokens = new ArrayList<>();
+        Matcher word = Pattern.compile("\\S+\\s*|\\s+").matcher(content);
+        while (word.find()) {
+            tokens.add(word.group());
+        }
+        return tokens;
+    }
+
+    private Duration sampleLatency() {
+        double median = settings.medianLatency().toNanos();
+        if (median <= 0) {
+            return Duration.ZERO;
+        }
+        double sigma = Math.max(0, Math.log(settings.p99Latency().toNanos() / median) / Z_99);
+        double sample = median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) sample);
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
@@ -0,0 +1,67 @@
+package edu.regis.stemulator.load;
+
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.model.StudentEvalResult;
+import edu.regis.stemulator.response.ScienceGuideResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Checks that the stub speaks the protocol Spring AI's OpenAI client expects. */
+class OpenAiStubServerTest {
+
+    private OpenAiStubServer stub;
+    private ChatClient chatClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new OpenAiStubServer(new OpenAiStubServer.Settings(Duration.ofMillis(5), Duration.ofMillis(20), Duration.ZERO, 0.0));
+        String url = stub.start(0);
+        OpenAiChatModel model = OpenAiChatModel.builder()
+                .openAiApi(OpenAiApi.builder().baseUrl(url).apiKey("stub-key").build())
+                .defaultOptions(OpenAiChatOptions.builder().model("stub-model").build())
+                .build();
+        chatClient = ChatClient.create(model);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void structuredResponses_matchTheRequestedType() {
+        // Act
+        ScienceLab lab = chatClient.prompt().user("The science labId is HS-LS4-2, the science discipline is Biology")
+                .call().entity(ScienceLab.class);
+        ScienceGuideResponse guidance = chatClient.prompt().user("Guide me").call().entity(ScienceGuideResponse.class);
+        StudentEvalResult eval = chatClient.prompt().user("Evaluate me").call().entity(StudentEvalResult.class);
+        Message message = chatClient.prompt().user("Hello").call().entity(Message.class);
+
+        // Assert
+        assertEquals("HS-LS4-2", lab.getLabId());
+        assertEquals(4, lab.getLabParts().size());
+        assertNotNull(guidance.getGuidance());
+        assertEquals(82, eval.getOverallScore());
+        assertEquals("assistant", message.getRole());
+        assertEquals(4, stub.requestCount());
+    }
+
+    @Test
+    void streamingResponses_arriveTokenByToken() {
+        var tokens = chatClient.prompt().user("Guide me").stream().content().collectList().block(Duration.ofSeconds(10));
+
+        assertNotNull(tokens);
+        assertTrue(tokens.size() > 5);
+        assertTrue(String.join("", tokens).startsWith("Look closely at how the population changes"));
+    }
+}
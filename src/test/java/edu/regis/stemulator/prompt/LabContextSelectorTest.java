@@ -0,0 +1,75 @@
+package edu.regis.stemulator.prompt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.regis.stemulator.cache.LabSnapshot;
+import edu.regis.stemulator.config.GuidanceContextProperties;
+import edu.regis.stemulator.model.LabPart;
+import edu.regis.stemulator.model.LearningGoals;
+import edu.regis.stemulator.model.ScienceLab;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabContextSelectorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void select_sendsOnlyRequestedPartWithMatchingGoals() {
+        // Arrange
+        LabSnapshot snapshot = LabSnapshot.of(lab(), objectMapper);
+        LabContextSelector selector = new LabContextSelector(new GuidanceContextProperties(), new SimpleMeterRegistry());
+
+        // Act
+        String context = selector.select(snapshot, 1);
+
+        // Assert
+        assertTrue(context.contains("Part 2 - Experiment"));
+        assertTrue(context.contains("Explain camouflage"));
+        assertTrue(context.contains("Student explains camouflage"));
+        assertTrue(context.contains("Organisms with helpful traits survive."));
+        assertFalse(context.contains("Part 1 - Setup"));
+        assertFalse(context.contains("Describe variation"));
+        assertFalse(context.contains("Lengthy background"));
+        assertTrue(context.length() < snapshot.getJson().length());
+    }
+
+    @Test
+    void select_fallsBackToFullDocument() {
+        // Arrange
+        LabSnapshot snapshot = LabSnapshot.of(lab(), objectMapper);
+        GuidanceContextProperties full = new GuidanceContextProperties();
+        full.setMode(GuidanceContextProperties.Mode.FULL);
+
+        // Act / Assert: configured, and for a part the lab does not have
+        assertSame(snapshot.getJson(), new LabContextSelector(full, new SimpleMeterRegistry()).select(snapshot, 1));
+        assertSame(snapshot.getJson(), new LabContextSelector(new GuidanceContextProperties(), new SimpleMeterRegistry()).select(snapshot, 7));
+    }
+
+    private static ScienceLab lab() {
+        ScienceLab lab = new ScienceLab();
+        lab.setLabId("LAB-123");
+        lab.setDiscipline("Biology");
+        lab.setTopic("Natural Selection");
+        lab.setSubTopic("Mutations");
+        lab.setDescription("Organisms with helpful traits survive. " + "Lengthy background detail ".repeat(40));
+
+        LearningGoals goals = new LearningGoals();
+        goals.setBigIdea("Traits change over generations");
+        goals.setObjectives(List.of("Describe variation", "Explain camouflage"));
+        goals.setSuccessCriteria(List.of("Student describes variation", "Student explains camouflage"));
+        lab.setLearningGoals(goals);
+
+        LabPart p1 = new LabPart();
+        p1.setTitle("Part 1 - Setup");
+        LabPart p2 = new LabPart();
+        p2.setTitle("Part 2 - Experiment");
+        lab.setLabParts(List.of(p1, p2));
+        return lab;
+    }
+}
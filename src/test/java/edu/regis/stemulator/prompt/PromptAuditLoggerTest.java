@@ -0,0 +1,62 @@
+package edu.regis.stemulator.prompt;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import edu.regis.stemulator.config.PromptAuditProperties;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.model.PromptTranscript;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PromptAuditLoggerTest {
+
+    @Test
+    void record_persistsSampledTranscriptsInFull() {
+        // Arrange
+        PromptAuditProperties properties = bind(Map.of(
+                "stemulator.prompt-audit.sample-rate", "1.0",
+                "stemulator.prompt-audit.max-chars", "10",
+                "stemulator.prompt-audit.persistent", "true",
+                "stemulator.prompt-audit.endpoints.guidance.sample-rate", "0"));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PromptAuditLogger audit = new PromptAuditLogger(properties, mongoTemplate, registry);
+        String prompt = "You are a quarky and charismatic high school science teacher";
+
+        // Act
+        audit.record(LlmEndpoint.GUIDANCE, "LAB-123/1", "not sampled", "guidance");
+        audit.record(LlmEndpoint.CREATE_LAB, "LAB-123", prompt, "lab");
+
+        // Assert
+        await().until(() -> registry.counter("stemulator.prompt.audit", "result", "written").count() == 1);
+        ArgumentCaptor<PromptTranscript> transcript = ArgumentCaptor.forClass(PromptTranscript.class);
+        verify(mongoTemplate).insert(transcript.capture());
+        assertEquals(LlmEndpoint.CREATE_LAB, transcript.getValue().getEndpoint());
+        assertEquals("LAB-123", transcript.getValue().getSubject());
+        assertEquals(prompt, transcript.getValue().getPrompt());
+        assertEquals("lab", transcript.getValue().getResponse());
+    }
+
+    @Test
+    void truncate_marksRemovedLength() {
+        assertEquals("Return str... [13 more chars]", PromptAuditLogger.truncate("Return structured data.", 10));
+        assertEquals("short", PromptAuditLogger.truncate("short", 10));
+        assertNull(PromptAuditLogger.truncate(null, 10));
+    }
+
+    private static PromptAuditProperties bind(Map<String, String> values) {
+        return new Binder(List.of(new MapConfigurationPropertySource(values)))
+                .bind("stemulator.prompt-audit", PromptAuditProperties.class)
+                .get();
+    }
+}
@@ -0,0 +1,132 @@
+package edu.regis.stemulator.prompt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import edu.regis.stemulator.config.PromptProperties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptTemplatesTest {
+
+    @Test
+    void render_fillsRepeatedPlaceholders() {
+        // Arrange
+        PromptTemplate template = PromptTemplate.compile("t", "{{format}} labId: {{ labId }}, part {{partId}}.\n{{format}}");
+        Map<String, Object> values = new HashMap<>();
+        values.put("format", "Return structured data.");
+        values.put("labId", "LAB-123");
+        values.put("partId", 1);
+
+        // Act
+        String prompt = template.render(values);
+
+        // Assert
+        assertEquals("Return structured data. labId: LAB-123, part 1.\nReturn structured data.", prompt);
+        assertEquals(Set.of("format", "labId", "partId"), template.getPlaceholders());
+    }
+
+    @Test
+    void render_rejectsMissingValues() {
+        // Arrange
+        PromptTemplate template = PromptTemplate.compile("t", "labId: {{labId}}");
+
+        // Act / Assert
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("partId", 1)));
+    }
+
+    @Test
+    void bundledTemplates_coverServicePlaceholders() {
+        // Arrange
+        PromptTemplates templates = new PromptTemplates();
+
+        // Act
+        PromptTemplate guide = templates.get(PromptTemplates.SCIENCE_GUIDE);
+        PromptTemplate lab = templates.get(PromptTemplates.SCIENCE_LAB);
+
+        // Assert
+        assertEquals(Set.of("topic", "partId", "responseFormat", "studentName", "labId", "labPartTitle", "setup",
+                "observations", "predictions", "history", "scienceLabJson", "evidenceCsv", "evidenceStats"),
+                guide.getPlaceholders());
+        assertEquals(Set.of("expertise", "simulation", "labId", "discipline", "topic", "subTopic"), lab.getPlaceholders());
+    }
+
+    @Test
+    void constructor_failsFast_onTemplateWithUnknownPlaceholder(@TempDir Path dir) throws Exception {
+        // Arrange: the bundled templates, with a typo in one placeholder
+        for (String name : new String[] {PromptTemplates.SCIENCE_GUIDE, PromptTemplates.SCIENCE_LAB, PromptTemplates.CONVERSATION_SUMMARY}) {
+            String text = new String(new DefaultResourceLoader().getResource("classpath:prompts/" + name + ".txt")
+                    .getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            Files.writeString(dir.resolve(name + ".txt"), text.replace("{{studentName}}", "{{studentNme}}"));
+        }
+        PromptProperties properties = new PromptProperties();
+        properties.setLocation(dir.toUri().toString());
+
+        // Act / Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new PromptTemplates(new DefaultResourceLoader(), properties));
+        assertTrue(e.getMessage().contains("studentNme"));
+    }
+
+    @Test
+    void get_reloadsChangedTemplateAfterInterval(@TempDir Path dir) throws Exception {
+        // Arrange
+        Path file = dir.resolve("greeting.txt");
+        Files.writeString(file, "Hello {{name}}");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2026-01-01T00:00:00Z")));
+        PromptProperties properties = new PromptProperties();
+        properties.setLocation(dir.toUri().toString());
+        properties.setReloadInterval(Duration.ofSeconds(30));
+        MutableClock clock = new MutableClock();
+        PromptTemplates templates = new PromptTemplates(new DefaultResourceLoader(), properties, clock);
+        assertEquals("Hello Alex", templates.get("greeting").render(Map.of("name", "Alex")));
+
+        // Act
+        Files.writeString(file, "Hi {{name}}!");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.parse("2026-01-02T00:00:00Z")));
+        String beforeInterval = templates.get("greeting").render(Map.of("name", "Alex"));
+        clock.advance(Duration.ofSeconds(31));
+        String afterInterval = templates.get("greeting").render(Map.of("name", "Alex"));
+
+        // Assert
+        assertEquals("Hello Alex", beforeInterval);
+        assertEquals("Hi Alex!", afterInterval);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package edu.regis.stemulator.ratelimit;
+
+import edu.regis.stemulator.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void studentIsLimitedToItsBurst_thenAdmittedAgainAfterRefill() throws Exception {
+        // Arrange: two requests a minute per student, no other limits
+        RateLimitProperties properties = requestsOnly(new RateLimitProperties.Budget(2, 2, 0, 0));
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry, now::get);
+
+        // Act + Assert
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "alex").getStatus());
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "alex").getStatus());
+        MockHttpServletResponse limited = post(filter, "/stemulator/v1/chat/completions", "alex");
+        assertEquals(429, limited.getStatus());
+        assertEquals("30", limited.getHeader("Retry-After"));
+        // Other students have their own bucket
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "blake").getStatus());
+
+        now.addAndGet(30_000_000_000L);
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "alex").getStatus());
+        assertEquals(1.0, meterRegistry.get(RateLimitFilter.REJECTED_METRIC)
+                .tag("scope", "student").tag("kind", "requests").counter().count());
+    }
+
+    @Test
+    void classBudgetIsSharedByStudents_andRejectionRefundsTheStudent() throws Exception {
+        RateLimitProperties properties = requestsOnly(new RateLimitProperties.Budget(10, 2, 0, 0));
+        properties.setClassroom(new RateLimitProperties.Budget(0, 0, 1_000, 1_000));
+        properties.setCompletionTokens(400);
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry, now::get);
+
+        // The lab in the path stands in for the class when no X-Class-Id is sent
+        String path = "/stemulator/v1/guides/lab/ecosystems-1/part/0";
+        assertEquals(200, post(filter, path, "alex").getStatus());
+        assertEquals(200, post(filter, path, "blake").getStatus());
+        assertEquals(429, post(filter, path, "casey").getStatus());
+
+        // casey's request was not charged to casey, so a request for another lab still goes through
+        assertEquals(200, post(filter, "/stemulator/v1/guides/lab/forces-2/part/0", "casey").getStatus());
+        assertEquals(200, post(filter, "/stemulator/v1/guides/lab/forces-2/part/0", "casey").getStatus());
+    }
+
+    @Test
+    void rotatingStudentIds_isLimitedByTheAddressBudget_unlessAClassOrApiKeyIsSent() throws Exception {
+        RateLimitProperties properties = requestsOnly(new RateLimitProperties.Budget(10, 10, 0, 0));
+        properties.setAddress(new RateLimitProperties.Budget(3, 3, 0, 0));
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "student-" + i).getStatus());
+        }
+        assertEquals(429, post(filter, "/stemulator/v1/chat/completions", "student-3").getStatus());
+        assertEquals(1.0, meterRegistry.get(RateLimitFilter.REJECTED_METRIC)
+                .tag("scope", "address").tag("kind", "requests").counter().count());
+
+        // A class header moves the shared budget to the class
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/stemulator/v1/chat/completions");
+        request.addHeader(RateLimitFilter.STUDENT_HEADER, "student-4");
+        request.addHeader(RateLimitFilter.CLASS_HEADER, "period-2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void newKeysBeyondMaxKeys_areRejected_untilASweepFreesFullBuckets() throws Exception {
+        RateLimitProperties properties = requestsOnly(new RateLimitProperties.Budget(2, 2, 0, 0));
+        properties.setAddress(new RateLimitProperties.Budget(0, 0, 0, 0));
+        properties.setMaxKeys(2);
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry, now::get);
+
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "alex").getStatus());
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "blake").getStatus());
+        MockHttpServletResponse full = post(filter, "/stemulator/v1/chat/completions", "casey");
+        assertEquals(429, full.getStatus());
+        assertEquals("1", full.getHeader("Retry-After"));
+        // Known keys keep their buckets
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "alex").getStatus());
+
+        // Once alex's and blake's buckets have refilled they are swept, making room for casey
+        now.addAndGet(60_000_000_000L);
+        assertEquals(200, post(filter, "/stemulator/v1/chat/completions", "casey").getStatus());
+        assertTrue(meterRegistry.get("stemulator.rate.limit.keys").gauge().value() <= 2);
+        assertEquals(1.0, meterRegistry.get(RateLimitFilter.REJECTED_METRIC)
+                .tag("scope", "student").tag("kind", "keys").counter().count());
+    }
+
+    @Test
+    void studentsWithoutIdentityBehindOneAddress_shareOnlyTheAddressBudget() throws Exception {
+        // Arrange: default budgets, a classroom of 30 behind one NAT sending no student header
+        RateLimitFilter filter = new RateLimitFilter(new RateLimitProperties(), meterRegistry, now::get);
+
+        // Act + Assert
+        for (int i = 0; i < 30; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/stemulator/v1/guides/lab/ecosystems-1/part/0");
+            request.setRemoteAddr("203.0.113.7");
+            request.setContent(new byte[400]);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertEquals(200, response.getStatus(), "request " + i);
+        }
+    }
+
+    @Test
+    void readsAndOtherPathsAreNotLimited() throws Exception {
+        RateLimitProperties properties = requestsOnly(new RateLimitProperties.Budget(1, 1, 0, 0));
+        RateLimitFilter filter = new RateLimitFilter(properties, meterRegistry, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, post(filter, "/stemulator/v1/labs/jobs", "alex").getStatus());
+            MockHttpServletRequest read = new MockHttpServletRequest("GET", "/stemulator/v1/chat/sessions/s-1");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(read, response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private static RateLimitProperties requestsOnly(RateLimitProperties.Budget student) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setStudent(student);
+        properties.setClassroom(new RateLimitProperties.Budget(0, 0, 0, 0));
+        properties.setApiKey(new RateLimitProperties.Budget(0, 0, 0, 0));
+        return properties;
+    }
+
+    private static MockHttpServletResponse post(RateLimitFilter filter, String path, String student) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader(RateLimitFilter.STUDENT_HEADER, student);
+        request.setContent(new byte[400]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -78,7 +78,7 @@ class ChatCompletionsServiceImplTest {
                 ArgumentCaptor.forClass((Class) List.class);
 
         // Act
-        Message actual = service.postMessages(input);
+        Message actual = service.postMessages(input, null);
 
         // Assert: returned entity
         assertSame(expected, actual);
@@ -0,0 +1,164 @@
+package edu.regis.stemulator.service.impl;
+
+import edu.regis.stemulator.config.ChatSessionProperties;
+import edu.regis.stemulator.conversation.ChatSessionStore;
+import edu.regis.stemulator.conversation.HistoryCompactor;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
+import edu.regis.stemulator.model.ChatSession;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.repository.mongo.ChatSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatSessionServiceImplTest {
+
+    private ChatClient.ChatClientRequestSpec requestSpec;
+    private ChatClient.CallResponseSpec responseSpec;
+    private ChatClient.Builder chatClientBuilder;
+    private LlmGateway llmGateway;
+    private HistoryCompactor historyCompactor;
+    private ChatSessionServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        chatClientBuilder = mock(ChatClient.Builder.class);
+        ChatClient chatClient = mock(ChatClient.class);
+        requestSpec = mock(ChatClient.ChatClientRequestSpec.class);
+        responseSpec = mock(ChatClient.CallResponseSpec.class);
+        when(chatClientBuilder.build()).thenReturn(chatClient);
+        when(chatClient.prompt()).thenReturn(requestSpec);
+        when(requestSpec.messages(anyList())).thenReturn(requestSpec);
+        when(requestSpec.call()).thenReturn(responseSpec);
+
+        llmGateway = mock(LlmGateway.class);
+        when(llmGateway.route(eq(LlmEndpoint.CHAT), anyList())).thenReturn(new ModelRoute(LlmEndpoint.CHAT, ModelRoute.DEFAULT, null, null));
+        when(llmGateway.call(any(ModelRoute.class), any(Supplier.class))).thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
+        historyCompactor = mock(HistoryCompactor.class);
+        when(historyCompactor.compact(eq(LlmEndpoint.CHAT), anyString(), anyList())).thenAnswer(invocation -> invocation.getArgument(2));
+
+        ChatSessionProperties inMemory = new ChatSessionProperties();
+        inMemory.setPersistent(false);
+        service = new ChatSessionServiceImpl(chatClientBuilder, llmGateway, historyCompactor, new ChatSessionStore(inMemory, null, null));
+    }
+
+    @Test
+    void postMessage_sendsStoredTranscriptPlusNewMessage_andAppendsReply() {
+        // Arrange
+        when(responseSpec.entity(eq(Message.class))).thenReturn(message(null, "Hello Alex!"), message("assistant", "Wolves eat rabbits."));
+        ChatSession session = service.createSession(List.of(message("system", "You are a science teacher.")));
+
+        // Act
+        Message first = service.postMessage(session.getSessionId(), message("user", "Hi, I'm Alex")).orElseThrow();
+        Message second = service.postMessage(session.getSessionId(), message("user", "Why do rabbits decrease?")).orElseThrow();
+
+        // Assert: replies are returned and kept in the session
+        assertEquals("assistant", first.getRole());
+        assertEquals("Wolves eat rabbits.", second.getContent());
+        List<Message> stored = service.getSession(session.getSessionId()).orElseThrow().getMessages();
+        assertEquals(List.of("You are a science teacher.", "Hi, I'm Alex", "Hello Alex!", "Why do rabbits decrease?", "Wolves eat rabbits."),
+                stored.stream().map(Message::getContent).toList());
+
+        // Assert: the second turn carried the whole conversation in Spring AI form
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<org.springframework.ai.chat.messages.Message>> sent = ArgumentCaptor.forClass((Class) List.class);
+        verify(requestSpec, times(2)).messages(sent.capture());
+        List<org.springframework.ai.chat.messages.Message> secondTurn = sent.getAllValues().get(1);
+        assertEquals(4, secondTurn.size());
+        assertInstanceOf(SystemMessage.class, secondTurn.get(0));
+        assertInstanceOf(UserMessage.class, secondTurn.get(1));
+        assertInstanceOf(AssistantMessage.class, secondTurn.get(2));
+        assertEquals("Why do rabbits decrease?", secondTurn.get(3).getText());
+    }
+
+    @Test
+    void postMessage_failsWithBadGateway_andKeepsSession_whenModelReturnsNoReply() {
+        // Arrange
+        when(responseSpec.entity(eq(Message.class))).thenReturn(null);
+        ChatSession session = service.createSession(List.of(message("system", "You are a science teacher.")));
+
+        // Act
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+                () -> service.postMessage(session.getSessionId(), message("user", "Hi, I'm Alex")));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_GATEWAY, error.getStatusCode());
+        assertEquals(1, service.getSession(session.getSessionId()).orElseThrow().getMessages().size());
+    }
+
+    @Test
+    void postMessage_reloadsSession_whenAnotherNodeAppendedToIt() {
+        // Arrange: a persistent store whose document another node has since appended to
+        ChatSessionRepository repository = mock(ChatSessionRepository.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        service = new ChatSessionServiceImpl(chatClientBuilder, llmGateway, historyCompactor,
+                new ChatSessionStore(new ChatSessionProperties(), repository, mongoTemplate));
+        when(responseSpec.entity(eq(Message.class))).thenReturn(message("assistant", "Wolves eat rabbits."));
+        ChatSession created = service.createSession(List.of(message("system", "You are a science teacher.")));
+
+        ChatSession stored = new ChatSession();
+        stored.setSessionId(created.getSessionId());
+        stored.setCreatedAt(created.getCreatedAt());
+        stored.setMessages(List.of(message("system", "You are a science teacher."),
+                message("user", "Hi, I'm Alex"), message("assistant", "Hello Alex!")));
+        stored.setExpireAt(Instant.now().plusSeconds(60));
+        stored.setRevision(1);
+        when(mongoTemplate.findOne(any(Query.class), eq(ChatSession.class))).thenReturn(stored);
+        when(repository.findById(created.getSessionId())).thenReturn(Optional.of(stored));
+
+        // Act
+        service.postMessage(created.getSessionId(), message("user", "Why do rabbits decrease?")).orElseThrow();
+
+        // Assert: the turn carried the other node's messages
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<org.springframework.ai.chat.messages.Message>> sent = ArgumentCaptor.forClass((Class) List.class);
+        verify(requestSpec).messages(sent.capture());
+        assertEquals(List.of("You are a science teacher.", "Hi, I'm Alex", "Hello Alex!", "Why do rabbits decrease?"),
+                sent.getValue().stream().map(org.springframework.ai.chat.messages.Message::getText).toList());
+    }
+
+    @Test
+    void unknownOrDeletedSessions_areNotFound() {
+        // Arrange
+        ChatSession session = service.createSession(null);
+
+        // Act
+        boolean deleted = service.deleteSession(session.getSessionId());
+
+        // Assert
+        assertTrue(deleted);
+        assertTrue(service.getSession(session.getSessionId()).isEmpty());
+        assertTrue(service.postMessage("missing", message("user", "Hello?")).isEmpty());
+        assertFalse(service.deleteSession("missing"));
+        verifyNoInteractions(requestSpec);
+    }
+
+    private static Message message(String role, String content) {
+        Message message = new Message();
+        message.setRole(role);
+        message.setContent(content);
+        return message;
+    }
+}
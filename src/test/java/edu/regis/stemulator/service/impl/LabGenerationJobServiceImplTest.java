@@ -0,0 +1,242 @@
+package edu.regis.stemulator.service.impl;
+
+import edu.regis.stemulator.config.LabJobProperties;
+import edu.regis.stemulator.config.ScreenshotProperties;
+import edu.regis.stemulator.image.ScreenshotPreprocessor;
+import edu.regis.stemulator.model.LabGenerationJob;
+import edu.regis.stemulator.model.LabGenerationJobStatus;
+import edu.regis.stemulator.model.ScienceLab;
+import edu.regis.stemulator.repository.mongo.LabGenerationJobRepository;
+import edu.regis.stemulator.service.ScienceLabService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LabGenerationJobServiceImplTest {
+
+    private final Map<String, LabGenerationJob> store = new ConcurrentHashMap<>();
+
+    private LabGenerationJobRepository jobRepository;
+    private ScienceLabService scienceLabService;
+    private LabGenerationJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(LabGenerationJobRepository.class);
+        scienceLabService = mock(ScienceLabService.class);
+
+        // Minimal in-memory stand-in for the Mongo collection
+        when(jobRepository.save(any(LabGenerationJob.class))).thenAnswer(inv -> {
+            LabGenerationJob job = inv.getArgument(0);
+            store.put(job.getJobId(), job);
+            return job;
+        });
+        when(jobRepository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(store.get(inv.<String>getArgument(0))));
+        when(jobRepository.findFirstByLabIdAndStatusIn(anyString(), anyCollection())).thenReturn(Optional.empty());
+        when(jobRepository.claim(anyString(), anyString(), any())).thenAnswer(inv -> {
+            LabGenerationJob job = store.get(inv.<String>getArgument(0));
+            if (job == null || job.getStatus() != LabGenerationJobStatus.QUEUED || !inv.getArgument(1).equals(job.getOwner())) {
+                return Optional.empty();
+            }
+            job.setStatus(LabGenerationJobStatus.RUNNING);
+            return Optional.of(job);
+        });
+
+        service = new LabGenerationJobServiceImpl(jobRepository, scienceLabService, new LabJobProperties(),
+                new ScreenshotPreprocessor(new ScreenshotProperties(), new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void submit_returnsQueuedJob_andCompletesWithGeneratedLab() {
+        // Arrange
+        ScienceLab generated = new ScienceLab();
+        generated.setLabId("LAB-123");
+        when(scienceLabService.createLab(eq("LAB-123"), eq("Biology"), eq("Natural Selection"), eq("Mutations"),
+                eq("Evolutionary Biology"), eq("Natural Selection"), any(byte[].class), eq("ui.png"), eq("image/png")))
+                .thenReturn(generated);
+
+        // Act
+        LabGenerationJob job = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+
+        // Assert
+        assertNotNull(job.getJobId());
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                service.getJob(job.getJobId()).orElseThrow().getStatus() == LabGenerationJobStatus.DONE);
+
+        LabGenerationJob done = service.getJob(job.getJobId()).orElseThrow();
+        assertSame(generated, done.getLab());
+        assertNull(done.getScreenshot(), "Screenshot should be dropped once the lab exists");
+    }
+
+    @Test
+    void submit_coalescesDuplicateSubmissionsForSameLab() throws Exception {
+        // Arrange: hold the first generation open
+        CountDownLatch release = new CountDownLatch(1);
+        when(scienceLabService.createLab(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                any(byte[].class), any(), any())).thenAnswer(inv -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return new ScienceLab();
+                });
+
+        // Act
+        LabGenerationJob first = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+        LabGenerationJob second = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+        release.countDown();
+
+        // Assert
+        assertEquals(first.getJobId(), second.getJobId());
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                service.getJob(first.getJobId()).orElseThrow().getStatus() == LabGenerationJobStatus.DONE);
+        verify(scienceLabService, times(1)).createLab(anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(byte[].class), any(), any());
+    }
+
+    @Test
+    void failedGeneration_isReportedOnTheJob() {
+        when(scienceLabService.createLab(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                any(byte[].class), any(), any())).thenThrow(new IllegalStateException("model unavailable"));
+
+        LabGenerationJob job = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                service.getJob(job.getJobId()).orElseThrow().getStatus() == LabGenerationJobStatus.FAILED);
+        // The upstream message stays in the log
+        assertEquals("Lab generation failed, please try again", service.getJob(job.getJobId()).orElseThrow().getError());
+    }
+
+    @Test
+    void generationError_failsTheJob_andReleasesTheLab() {
+        when(scienceLabService.createLab(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                any(byte[].class), any(), any())).thenThrow(new StackOverflowError());
+
+        LabGenerationJob job = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+
+        // The error still propagates out of the worker once the job is failed
+        await().atMost(Duration.ofSeconds(5)).dontCatchUncaughtExceptions().until(() ->
+                service.getJob(job.getJobId()).orElseThrow().getStatus() == LabGenerationJobStatus.FAILED);
+        assertNull(service.getJob(job.getJobId()).orElseThrow().getActiveLabId());
+        assertEquals("Lab generation failed, please try again", service.getJob(job.getJobId()).orElseThrow().getError());
+    }
+
+    @Test
+    void submit_returnsJobOwnedElsewhere_withoutTrackingItLocally() {
+        // Arrange: another node holds the active job, then finishes it
+        LabGenerationJob foreign = new LabGenerationJob();
+        foreign.setJobId("other-node-job");
+        foreign.setLabId("LAB-123");
+        foreign.setStatus(LabGenerationJobStatus.RUNNING);
+        when(jobRepository.findFirstByLabIdAndStatusIn(eq("LAB-123"), anyCollection()))
+                .thenReturn(Optional.of(foreign))
+                .thenReturn(Optional.empty());
+        when(scienceLabService.createLab(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                any(byte[].class), any(), any())).thenReturn(new ScienceLab());
+
+        // Act
+        LabGenerationJob coalesced = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+        LabGenerationJob next = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+
+        // Assert: the finished foreign job is not handed out again
+        assertEquals("other-node-job", coalesced.getJobId());
+        assertNotEquals("other-node-job", next.getJobId());
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                service.getJob(next.getJobId()).orElseThrow().getStatus() == LabGenerationJobStatus.DONE);
+        assertNull(service.getJob(next.getJobId()).orElseThrow().getActiveLabId());
+    }
+
+    @Test
+    void submit_returnsWinningJob_whenActiveJobIndexRejectsTheInsert() {
+        // Arrange: a concurrent request inserted the active job between the lookup and the save
+        LabGenerationJob winner = new LabGenerationJob();
+        winner.setJobId("winner");
+        winner.setStatus(LabGenerationJobStatus.QUEUED);
+        when(jobRepository.findFirstByLabIdAndStatusIn(eq("LAB-123"), anyCollection()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(winner));
+        when(jobRepository.save(any(LabGenerationJob.class))).thenThrow(new DuplicateKeyException("activeLabId"));
+
+        // Act
+        LabGenerationJob job = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+
+        // Assert
+        assertSame(winner, job);
+        verifyNoInteractions(scienceLabService);
+    }
+
+    @Test
+    void recoverJobs_runsOnlyJobsWhoseLeaseThisNodeTookOver() {
+        // Arrange: the repository hands over one job whose owner stopped renewing its lease
+        LabGenerationJob orphaned = new LabGenerationJob();
+        orphaned.setJobId("orphaned");
+        orphaned.setLabId("LAB-123");
+        orphaned.setDiscipline("Biology");
+        orphaned.setTopic("Natural Selection");
+        orphaned.setSubTopic("Mutations");
+        orphaned.setExpertise("Evolutionary Biology");
+        orphaned.setSimulation("Natural Selection");
+        orphaned.setScreenshot(new byte[]{1});
+        orphaned.setStatus(LabGenerationJobStatus.QUEUED);
+        when(jobRepository.takeOverExpired(anyString(), any(), any())).thenAnswer(inv -> {
+            orphaned.setOwner(inv.getArgument(0));
+            store.put(orphaned.getJobId(), orphaned);
+            return List.of(orphaned);
+        });
+        when(scienceLabService.createLab(anyString(), anyString(), anyString(), anyString(), anyString(), anyString(),
+                any(byte[].class), any(), any())).thenReturn(new ScienceLab());
+
+        // Act
+        service.recoverJobs();
+
+        // Assert
+        await().atMost(Duration.ofSeconds(5)).until(() -> orphaned.getStatus() == LabGenerationJobStatus.DONE);
+        verify(scienceLabService, times(1)).createLab(anyString(), anyString(), anyString(), anyString(), anyString(),
+                anyString(), any(byte[].class), any(), any());
+    }
+
+    @Test
+    void queuedJob_isNotRun_whenAnotherNodeTookItOver() {
+        // Arrange: the claim finds the job owned elsewhere
+        when(jobRepository.claim(anyString(), anyString(), any())).thenReturn(Optional.empty());
+
+        // Act
+        LabGenerationJob job = service.submit("LAB-123", "Biology", "Natural Selection", "Mutations",
+                "Evolutionary Biology", "Natural Selection", screenshot());
+
+        // Assert
+        verify(jobRepository, timeout(5_000)).claim(eq(job.getJobId()), anyString(), any());
+        verifyNoInteractions(scienceLabService);
+        assertEquals(LabGenerationJobStatus.QUEUED, service.getJob(job.getJobId()).orElseThrow().getStatus());
+    }
+
+    private static MockMultipartFile screenshot() {
+        return new MockMultipartFile("screenshot", "ui.png", "image/png", new byte[]{1, 2, 3});
+    }
+}
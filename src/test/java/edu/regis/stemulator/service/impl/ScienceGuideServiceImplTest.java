@@ -1,6 +1,16 @@
 package edu.regis.stemulator.service.impl;
 
+import edu.regis.stemulator.cache.GuidanceResponseCache;
+import edu.regis.stemulator.cache.LabCache;
+import edu.regis.stemulator.cache.LabSnapshot;
+import edu.regis.stemulator.evidence.CsvEvidenceParser;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.llm.ModelRoute;
 import edu.regis.stemulator.model.LabPart;
+import edu.regis.stemulator.prompt.LabContextSelector;
+import edu.regis.stemulator.prompt.PromptAuditLogger;
+import edu.regis.stemulator.prompt.PromptTemplates;
 import edu.regis.stemulator.model.ScienceLab;
 import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
 import edu.regis.stemulator.request.ScienceGuideRequest;
@@ -18,7 +28,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -125,6 +139,75 @@ class ScienceGuideServiceImplTest {
         ));
     }
 
+    @Test
+    void getGuidance_doesNotCoalesceConcurrentSubmissions_fromDifferentStudents() throws Exception {
+        // Arrange: the first completion waits until a second one has started
+        ScienceLab lab = buildLabWithParts("LAB-123");
+        when(labRepository.findById("LAB-123")).thenReturn(Optional.of(lab));
+        when(objectMapper.writeValueAsString(any(ScienceLab.class))).thenReturn("{\"labId\":\"LAB-123\"}");
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(responseSpec.entity(eq(ScienceGuideResponse.class))).thenAnswer(inv -> {
+            bothStarted.countDown();
+            bothStarted.await(2, TimeUnit.SECONDS);
+            return new ScienceGuideResponse("guidance");
+        });
+
+        // Act
+        CompletableFuture<ScienceGuideResponse> alex = CompletableFuture.supplyAsync(
+                () -> service.getGuidance("LAB-123", 1, request("Alex"), null));
+        CompletableFuture<ScienceGuideResponse> sam = CompletableFuture.supplyAsync(
+                () -> service.getGuidance("LAB-123", 1, request("Sam"), null));
+        alex.get(5, TimeUnit.SECONDS);
+        sam.get(5, TimeUnit.SECONDS);
+
+        // Assert: each student got a completion of their own
+        assertEquals(0, bothStarted.getCount());
+        verify(responseSpec, times(2)).entity(ScienceGuideResponse.class);
+    }
+
+    @Test
+    void getGuidance_cachesAndAuditsOnlyTheAnswerReturned_whenHedgedAttemptsBothFinish() {
+        // Arrange: a gateway that runs a hedged second attempt to completion and returns the first
+        LabCache labCache = mock(LabCache.class);
+        when(labCache.findSnapshotById("LAB-123")).thenReturn(Optional.of(LabSnapshot.of(buildLabWithParts("LAB-123"), new ObjectMapper())));
+        LlmGateway llmGateway = mock(LlmGateway.class);
+        when(llmGateway.route(eq(LlmEndpoint.GUIDANCE), any(CharSequence.class)))
+                .thenReturn(new ModelRoute(LlmEndpoint.GUIDANCE, ModelRoute.DEFAULT, null, null));
+        when(llmGateway.call(any(ModelRoute.class), anyString(), any(Supplier.class))).thenAnswer(inv -> {
+            Supplier<?> attempt = inv.getArgument(2);
+            Object first = attempt.get();
+            attempt.get();
+            return first;
+        });
+        GuidanceResponseCache guidanceCache = mock(GuidanceResponseCache.class);
+        when(guidanceCache.key(any(), any(), any(), any(), anyString())).thenReturn("key");
+        PromptAuditLogger promptAudit = mock(PromptAuditLogger.class);
+        LabContextSelector contextSelector = mock(LabContextSelector.class);
+        when(contextSelector.select(any(), anyInt())).thenReturn("{}");
+        ScienceGuideServiceImpl hedged = new ScienceGuideServiceImpl(chatClientBuilder, labCache, llmGateway, guidanceCache,
+                new CsvEvidenceParser(), new PromptTemplates(), promptAudit, contextSelector);
+        when(responseSpec.entity(eq(ScienceGuideResponse.class)))
+                .thenReturn(new ScienceGuideResponse("first"), new ScienceGuideResponse("late"));
+
+        // Act
+        ScienceGuideResponse guidance = hedged.getGuidance("LAB-123", 1, request("Alex"), null);
+
+        // Assert
+        assertEquals("first", guidance.getGuidance());
+        verify(guidanceCache).put("key", "LAB-123", 1, guidance);
+        verify(guidanceCache, never()).put(any(), any(), any(), argThat(response -> "late".equals(response.getGuidance())));
+        verify(promptAudit, times(1)).record(eq(LlmEndpoint.GUIDANCE), anyString(), anyString(), any());
+    }
+
+    private static ScienceGuideRequest request(String studentName) {
+        ScienceGuideRequest request = new ScienceGuideRequest();
+        request.setStudentName(studentName);
+        request.setSetup(List.of("wolves=some"));
+        request.setObservations(List.of("More white rabbits survive"));
+        request.setPredictions(List.of("White fur frequency will rise"));
+        return request;
+    }
+
     private static ScienceLab buildLabWithParts(String labId) {
         ScienceLab lab = new ScienceLab();
         lab.setLabId(labId);
@@ -0,0 +1,159 @@
+package edu.regis.stemulator.service.impl;
+
+import edu.regis.stemulator.config.StudentEvalBatchProperties;
+import edu.regis.stemulator.llm.LlmEndpoint;
+import edu.regis.stemulator.llm.LlmGateway;
+import edu.regis.stemulator.model.Message;
+import edu.regis.stemulator.model.StudentEvalResult;
+import edu.regis.stemulator.repository.mongo.ScienceLabRepository;
+import edu.regis.stemulator.request.StudentEvalBatchRequest;
+import edu.regis.stemulator.response.StudentEvalBatchItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Hooks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StudentEvalServiceImplTest {
+
+    @Test
+    void evaluateBatch_streamsEachResult_andReportsFailuresAndTimeouts() {
+        // Arrange
+        ChatClient.Builder chatClientBuilder = mock(ChatClient.Builder.class);
+        when(chatClientBuilder.build()).thenReturn(mock(ChatClient.class));
+        StudentEvalBatchProperties properties = new StudentEvalBatchProperties();
+        properties.setMaxParallelism(2);
+        properties.setItemTimeout(Duration.ofMillis(300));
+        StudentEvalServiceImpl service = spy(new StudentEvalServiceImpl(chatClientBuilder, mock(ScienceLabRepository.class),
+                new ObjectMapper(), mock(LlmGateway.class), properties));
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<Message> messages = invocation.getArgument(1);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return switch (messages.get(0).getContent()) {
+                    case "fail" -> throw new IllegalStateException("model refused");
+                    case "slow" -> {
+                        Thread.sleep(5_000);
+                        yield result(0);
+                    }
+                    default -> {
+                        Thread.sleep(50);
+                        yield result(90);
+                    }
+                };
+            } finally {
+                running.decrementAndGet();
+            }
+        }).when(service).evaluate(eq(LlmEndpoint.STUDENT_EVAL_BATCH), anyList());
+
+        List<StudentEvalBatchRequest.Item> items = List.of(
+                item("alex", "ok"), item("blake", "fail"), item("casey", "slow"), item("drew", "ok"));
+
+        // Act
+        List<StudentEvalBatchItem> lines = service.evaluateBatch(items).collectList().block(Duration.ofSeconds(10));
+
+        // Assert
+        assertEquals(5, lines.size());
+        Map<String, StudentEvalBatchItem> byId = lines.subList(0, 4).stream()
+                .collect(Collectors.toMap(StudentEvalBatchItem::getId, line -> line));
+        assertEquals(StudentEvalBatchItem.OK, byId.get("alex").getStatus());
+        assertEquals(90, byId.get("alex").getResult().getOverallScore());
+        assertEquals(StudentEvalBatchItem.FAILED, byId.get("blake").getStatus());
+        // The upstream message stays in the log
+        assertEquals("Evaluation failed, please try again", byId.get("blake").getError());
+        assertEquals(StudentEvalBatchItem.TIMED_OUT, byId.get("casey").getStatus());
+        assertEquals(2, byId.get("casey").getIndex());
+        assertEquals(StudentEvalBatchItem.OK, byId.get("drew").getStatus());
+
+        StudentEvalBatchItem summary = lines.get(4);
+        assertEquals(StudentEvalBatchItem.SUMMARY, summary.getStatus());
+        assertEquals(2, summary.getSucceeded());
+        assertEquals(2, summary.getFailed());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void evaluateBatch_interruptsTimedOutEvaluation_withoutDroppingItsLateFailure() throws Exception {
+        // Arrange
+        ChatClient.Builder chatClientBuilder = mock(ChatClient.Builder.class);
+        when(chatClientBuilder.build()).thenReturn(mock(ChatClient.class));
+        StudentEvalBatchProperties properties = new StudentEvalBatchProperties();
+        properties.setItemTimeout(Duration.ofMillis(100));
+        StudentEvalServiceImpl service = spy(new StudentEvalServiceImpl(chatClientBuilder, mock(ScienceLabRepository.class),
+                new ObjectMapper(), mock(LlmGateway.class), properties));
+
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        doAnswer(invocation -> {
+            worker.set(Thread.currentThread());
+            try {
+                Thread.sleep(5_000);
+                return result(0);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+                throw e;
+            }
+        }).when(service).evaluate(eq(LlmEndpoint.STUDENT_EVAL_BATCH), anyList());
+        List<Throwable> dropped = new CopyOnWriteArrayList<>();
+        Hooks.onErrorDropped(dropped::add);
+
+        try {
+            // Act
+            List<StudentEvalBatchItem> lines = service.evaluateBatch(List.of(item("casey", "slow"))).collectList().block(Duration.ofSeconds(10));
+            worker.get().join(Duration.ofSeconds(5));
+
+            // Assert
+            assertEquals(StudentEvalBatchItem.TIMED_OUT, lines.get(0).getStatus());
+            assertTrue(interrupted.get());
+            assertTrue(dropped.isEmpty(), () -> "Dropped: " + dropped);
+        } finally {
+            Hooks.resetOnErrorDropped();
+            service.destroy();
+        }
+    }
+
+    @Test
+    void evaluateBatch_rejectsOversizedBatches() {
+        ChatClient.Builder chatClientBuilder = mock(ChatClient.Builder.class);
+        StudentEvalBatchProperties properties = new StudentEvalBatchProperties();
+        properties.setMaxItems(1);
+        StudentEvalServiceImpl service = new StudentEvalServiceImpl(chatClientBuilder, mock(ScienceLabRepository.class),
+                new ObjectMapper(), mock(LlmGateway.class), properties);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.evaluateBatch(List.of(item("alex", "ok"), item("blake", "ok"))));
+    }
+
+    private static StudentEvalBatchRequest.Item item(String id, String content) {
+        Message message = new Message();
+        message.setRole("user");
+        message.setContent(content);
+        StudentEvalBatchRequest.Item item = new StudentEvalBatchRequest.Item();
+        item.setId(id);
+        item.setMessages(List.of(message));
+        return item;
+    }
+
+    private static StudentEvalResult result(int score) {
+        StudentEvalResult result = new StudentEvalResult();
+        result.setOverallScore(score);
+        return result;
+    }
+}